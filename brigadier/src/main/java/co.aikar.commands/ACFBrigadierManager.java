@@ -1,5 +1,6 @@
 package co.aikar.commands;
 
+import com.google.common.collect.MapMaker;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.arguments.ArgumentType;
 import com.mojang.brigadier.arguments.BoolArgumentType;
@@ -10,12 +11,19 @@ import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.suggestion.SuggestionsBuilder;
 import com.mojang.brigadier.tree.CommandNode;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 /**
@@ -29,6 +37,13 @@ public class ACFBrigadierManager<S> {
     protected final CommandManager<?, ?, ?, ?> manager;
 
     private final Map<Class<?>, ArgumentType<?>> arguments = new HashMap<>();
+    /**
+     * The checks of each source being tested. The server tests every node of a command tree against the same source when
+     * building the tree sent to a player, and creates a new source for the next one, so the checks are shared for the
+     * duration of one tree build. Sources are held weakly and by identity, so the checks and the issuer go away with the
+     * source once the build is done.
+     */
+    private final Map<S, SourceChecks> sourceChecks = new MapMaker().weakKeys().concurrencyLevel(2).makeMap();
 
     /**
      * Constructs a new brigadier manager, utilizing the currently active command manager
@@ -66,10 +81,79 @@ public class ACFBrigadierManager<S> {
         return (ArgumentType<Object>) arguments.getOrDefault(param.getType(), StringArgumentType.string());
     }
 
+    /**
+     * Creates a suggestion provider completing the given RootCommand, composing completions that are still being looked
+     * up into the suggestions instead of blocking on them.<br>
+     * <p>
+     * Falls back to the given provider if a completion may only run on the main thread while this isn't it.
+     *
+     * @param rootCommand the command to complete
+     * @param senderOf    maps the brigadier source to the sender of the platform
+     * @param isAsync     whether suggestions are currently requested off of the main thread
+     * @param fallback    the provider to use when completions can't run on this thread
+     */
+    SuggestionProvider<S> suggestionProvider(RootCommand rootCommand,
+                                             Function<S, Object> senderOf,
+                                             BooleanSupplier isAsync,
+                                             SuggestionProvider<S> fallback) {
+        return (context, builder) -> {
+            String input = builder.getInput();
+            String[] args = ACFPatterns.SPACE.split(input.startsWith("/") ? input.substring(1) : input, -1);
+            args = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : new String[]{""};
+            CommandIssuer issuer = manager.getCommandIssuer(senderOf.apply(context.getSource()));
+
+            CompletionSink sink = new CompletionSink(args[args.length - 1], manager.getCompletionLimit());
+            CompletableFuture<List<String>> completions = rootCommand.getTabCompletions(issuer, args, false, isAsync.getAsBoolean(), sink);
+            if (sink.isSyncRequired()) {
+                return fallback.getSuggestions(context, builder);
+            }
+
+            SuggestionsBuilder offset = builder.createOffset(input.lastIndexOf(' ') + 1);
+            return completions.thenApply(values -> {
+                for (String value : values) {
+                    offset.suggest(value);
+                }
+                return offset.build();
+            });
+        };
+    }
+
+    /**
+     * Gets the issuer of the source, created once for each source rather than for every node tested against it.
+     *
+     * @param source   the brigadier source
+     * @param senderOf maps the brigadier source to the sender of the platform
+     */
+    CommandIssuer getIssuer(S source, Function<S, Object> senderOf) {
+        SourceChecks checks = sourceChecks.computeIfAbsent(source, s -> new SourceChecks());
+        CommandIssuer issuer = checks.issuer;
+        if (issuer == null) {
+            issuer = manager.getCommandIssuer(senderOf.apply(source));
+            checks.issuer = issuer;
+        }
+        return issuer;
+    }
+
+    /**
+     * Tests the source once for each key, sharing the result with every other node tested with the same key.
+     */
+    private boolean testOnce(S source, Object key, Predicate<S> check) {
+        SourceChecks checks = sourceChecks.computeIfAbsent(source, s -> new SourceChecks());
+        Boolean result = checks.results.get(key);
+        if (result == null) {
+            result = check.test(source);
+            checks.results.put(key, result);
+        }
+        return result;
+    }
+
     /**
      * Registers the given RootCommand into the given brigadir command node, utilizing the provided suggestion provider, executor and permission predicate.<br>
      * <p>
-     * It recreates the root command node!
+     * It recreates the root command node!<br>
+     * <p>
+     * The permission predicates are expected to only depend on the permissions of the commands, as their results are
+     * shared between the nodes of commands requiring the same permissions while the same source is tested.
      */
     LiteralCommandNode<S> register(RootCommand rootCommand,
                                    LiteralCommandNode<S> root,
@@ -79,7 +163,7 @@ public class ACFBrigadierManager<S> {
                                    BiPredicate<RegisteredCommand, S> permCheckerSub) {
         // recreate root to get rid of bukkits default arg
         LiteralArgumentBuilder<S> rootBuilder = LiteralArgumentBuilder.<S>literal(root.getLiteral())
-                .requires(sender -> permCheckerRoot.test(rootCommand, sender));
+                .requires(sender -> testOnce(sender, rootCommand, source -> permCheckerRoot.test(rootCommand, source)));
 
         RegisteredCommand defaultCommand = rootCommand.getDefaultRegisteredCommand();
         if (defaultCommand != null) {
@@ -105,7 +189,7 @@ public class ACFBrigadierManager<S> {
             String commandName = subCommand.getKey();
             CommandNode<S> currentParent = root;
             CommandNode<S> subCommandNode;
-            Predicate<S> subPermChecker = sender -> permCheckerSub.test(subCommand.getValue(), sender);
+            Predicate<S> subPermChecker = permissionPredicate(subCommand.getValue(), permCheckerSub);
             if (!isForwardingCommand) {
                 if (commandName.contains(" ")) {
                     String[] split = ACFPatterns.SPACE.split(commandName);
@@ -147,6 +231,11 @@ public class ACFBrigadierManager<S> {
         return root;
     }
 
+    private Predicate<S> permissionPredicate(RegisteredCommand command, BiPredicate<RegisteredCommand, S> permChecker) {
+        Object permissions = command.getRequiredPermissions();
+        return sender -> testOnce(sender, permissions, source -> permChecker.test(command, source));
+    }
+
     void registerParameters(RegisteredCommand command,
                             CommandNode<S> node,
                             SuggestionProvider<S> suggestionProvider,
@@ -161,7 +250,7 @@ public class ACFBrigadierManager<S> {
             RequiredArgumentBuilder<S, Object> builder = RequiredArgumentBuilder
                     .<S, Object>argument(param.getName(), getArgumentTypeByClazz(param))
                     .suggests(suggestionProvider)
-                    .requires(sender -> permChecker.test(command, sender));
+                    .requires(permissionPredicate(command, permChecker));
 
             if (nextParam == null || nextParam.canExecuteWithoutInput()) {
                 builder.executes(executor);
@@ -173,4 +262,8 @@ public class ACFBrigadierManager<S> {
         }
     }
 
+    private static final class SourceChecks {
+        private final Map<Object, Boolean> results = new ConcurrentHashMap<>();
+        private volatile CommandIssuer issuer;
+    }
 }
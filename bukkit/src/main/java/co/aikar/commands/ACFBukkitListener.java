@@ -24,8 +24,13 @@
 package co.aikar.commands;
 
 import lombok.RequiredArgsConstructor;
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerEvent;
 import org.bukkit.event.server.PluginDisableEvent;
 import org.bukkit.plugin.Plugin;
 
@@ -41,4 +46,29 @@ public class ACFBukkitListener implements Listener {
         }
         manager.unregisterCommands();
     }
+
+    @EventHandler
+    public void onWorldChange(PlayerChangedWorldEvent event) {
+        // Permissions may be granted per world.
+        manager.invalidatePermissions(manager.getCommandIssuer(event.getPlayer()));
+    }
+
+    /**
+     * Forgets the permissions a player was granted whenever its command list is sent, on versions having that event.
+     * Permission plugins resend it once they recalculated the permissions of a player, so this is the closest thing to
+     * a recalculation event.
+     */
+    void registerCommandSendHandler() {
+        Class<? extends Event> eventClass;
+        try {
+            eventClass = Class.forName("org.bukkit.event.player.PlayerCommandSendEvent").asSubclass(Event.class);
+        } catch (ClassNotFoundException ignored) {
+            return;
+        }
+        Bukkit.getPluginManager().registerEvent(eventClass, this, EventPriority.LOWEST, (listener, event) -> {
+            if (eventClass.isInstance(event)) {
+                manager.invalidatePermissions(manager.getCommandIssuer(((PlayerEvent) event).getPlayer()));
+            }
+        }, plugin);
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The online players sorted by their lowercase name, kept up to date by join and quit events, so completing and
+ * resolving player names doesn't scan every online player.
+ * <p>
+ * Visibility is left to the callers, as it depends on who is looking.
+ */
+public class ACFBukkitPlayerIndex implements Listener {
+    private final ConcurrentNavigableMap<String, Player> players = new ConcurrentSkipListMap<>();
+
+    ACFBukkitPlayerIndex() {
+        // Players may already be online if the plugin was loaded late.
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            players.put(key(player.getName()), player);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        players.put(key(player.getName()), player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        players.remove(key(player.getName()), player);
+    }
+
+    /**
+     * Pushes the names of the online players starting with the prefix into the sink, in case insensitive order,
+     * skipping the players the viewer can't see.
+     *
+     * @param viewer The sender completing the names.
+     * @param prefix The input being completed.
+     * @param sink   The sink collecting the names.
+     */
+    public void complete(CommandSender viewer, String prefix, CompletionSink sink) {
+        Player viewingPlayer = viewer instanceof Player ? (Player) viewer : null;
+        String start = key(prefix != null ? prefix : "");
+        for (Map.Entry<String, Player> entry : players.tailMap(start, true).entrySet()) {
+            if (!entry.getKey().startsWith(start)) {
+                break;
+            }
+            Player player = entry.getValue();
+            if ((viewingPlayer == null || viewingPlayer.canSee(player)) && !sink.add(player.getName())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return The online player with exactly the name ignoring case, or null if there is none.
+     */
+    public Player getPlayerExact(String name) {
+        return players.get(key(name));
+    }
+
+    /**
+     * Matches players the same way as {@link org.bukkit.Server#matchPlayer(String)}: the player with exactly the name,
+     * else all players whose name contains it, ignoring case.
+     *
+     * @return A mutable list of the matched players.
+     */
+    public List<Player> matchPlayer(String name) {
+        String search = key(name);
+        List<Player> matches = new ArrayList<>();
+        Player exact = players.get(search);
+        if (exact != null) {
+            matches.add(exact);
+            return matches;
+        }
+        for (Map.Entry<String, Player> entry : players.entrySet()) {
+            if (entry.getKey().contains(search)) {
+                matches.add(entry.getValue());
+            }
+        }
+        return matches;
+    }
+
+    public int size() {
+        return players.size();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+}
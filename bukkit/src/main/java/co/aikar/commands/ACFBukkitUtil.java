@@ -264,7 +264,10 @@ public class ACFBukkitUtil {
             return null;
         }
         String name = ACFUtil.replace(search, ":confirm", "");
-        List<Player> matches = Bukkit.getServer().matchPlayer(name);
+        CommandManager manager = issuer.getManager();
+        List<Player> matches = manager instanceof BukkitCommandManager
+                ? ((BukkitCommandManager) manager).getPlayerIndex().matchPlayer(name)
+                : Bukkit.getServer().matchPlayer(name);
         findMatches(requester, matches);
 
         if (matches.size() > 1) {
@@ -32,9 +32,7 @@ import org.bukkit.World;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Player;
-import org.bukkit.util.StringUtil;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -64,28 +62,16 @@ public class BukkitCommandCompletions extends CommandCompletions<BukkitCommandCo
 
             return colors.map(color -> ACFUtil.simplifyString(color.name())).collect(Collectors.toList());
         });
-        registerAsyncCompletion("dyecolors", c -> ACFUtil.enumNames(DyeColor.values()));
+        registerStaticCompletion("dyecolors", ACFUtil.enumNames(DyeColor.class));
         registerCompletion("worlds", c -> (
                 Bukkit.getWorlds().stream().map(World::getName).collect(Collectors.toList())
         ));
 
-        registerCompletion("players", c -> {
+        registerSinkCompletion("players", (c, sink) -> {
             CommandSender sender = c.getSender();
             Validate.notNull(sender, "Sender cannot be null");
 
-            Player senderPlayer = sender instanceof Player ? (Player) sender : null;
-
-            ArrayList<String> matchedPlayers = new ArrayList<>();
-            for (Player player : Bukkit.getOnlinePlayers()) {
-                String name = player.getName();
-                if ((senderPlayer == null || senderPlayer.canSee(player)) && StringUtil.startsWithIgnoreCase(name, c.getInput())) {
-                    matchedPlayers.add(name);
-                }
-            }
-
-
-            matchedPlayers.sort(String.CASE_INSENSITIVE_ORDER);
-            return matchedPlayers;
+            c.issuer.getManager().getPlayerIndex().complete(sender, c.getInput(), sink);
         });
 
         setDefaultCompletion("players", OnlinePlayer.class, OnlinePlayer.class, Player.class);
@@ -76,6 +76,7 @@ public class BukkitCommandManager extends CommandManager<
     protected Map<String, BukkitRootCommand> registeredCommands = new HashMap<>();
     protected BukkitCommandContexts contexts;
     protected BukkitCommandCompletions completions;
+    protected final ACFBukkitPlayerIndex playerIndex;
 
     public BukkitCommandManager(Plugin plugin) {
         this.plugin = plugin;
@@ -96,7 +97,11 @@ public class BukkitCommandManager extends CommandManager<
         }
 
         Bukkit.getHelpMap().registerHelpTopicFactory(BukkitRootCommand.class, command -> new ACFBukkitHelpTopic(this, (BukkitRootCommand) command));
-        Bukkit.getPluginManager().registerEvents(new ACFBukkitListener(this, plugin), plugin);
+        ACFBukkitListener listener = new ACFBukkitListener(this, plugin);
+        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        listener.registerCommandSendHandler();
+        this.playerIndex = new ACFBukkitPlayerIndex();
+        Bukkit.getPluginManager().registerEvents(this.playerIndex, plugin);
 
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Logger.class, plugin.getLogger());
@@ -137,7 +142,11 @@ public class BukkitCommandManager extends CommandManager<
         }
 
         Bukkit.getHelpMap().registerHelpTopicFactory(BukkitRootCommand.class, command -> new ACFBukkitHelpTopic(this, (BukkitRootCommand) command));
-        Bukkit.getPluginManager().registerEvents(new ACFBukkitListener(this, plugin), plugin);
+        ACFBukkitListener listener = new ACFBukkitListener(this, plugin);
+        Bukkit.getPluginManager().registerEvents(listener, plugin);
+        listener.registerCommandSendHandler();
+        this.playerIndex = new ACFBukkitPlayerIndex();
+        Bukkit.getPluginManager().registerEvents(this.playerIndex, plugin);
 
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Logger.class, plugin.getLogger());
@@ -155,6 +164,13 @@ public class BukkitCommandManager extends CommandManager<
         CC.checkHexColors();
     }
 
+    /**
+     * @return The online players by name, used to complete and resolve player names.
+     */
+    public ACFBukkitPlayerIndex getPlayerIndex() {
+        return playerIndex;
+    }
+
     @NotNull
     private CommandMap hookCommandMap() {
         CommandMap commandMap = null;
@@ -255,6 +271,7 @@ public class BukkitCommandManager extends CommandManager<
         for (RootCommand rootcommand : command.registeredCommands.values()) {
             BukkitRootCommand bukkitCommand = (BukkitRootCommand) rootcommand;
             bukkitCommand.getSubCommands().values().removeAll(command.subCommands.values());
+            getRouter().reindex(bukkitCommand);
             if (bukkitCommand.isRegistered && bukkitCommand.getSubCommands().isEmpty()) {
                 unregisterCommand(bukkitCommand);
                 bukkitCommand.isRegistered = false;
@@ -277,6 +294,7 @@ public class BukkitCommandManager extends CommandManager<
         }
         knownCommands.remove(plugin + ":" + key);
         registeredCommands.remove(key);
+        getRouter().remove(command);
     }
 
     public void unregisterCommands() {
@@ -111,7 +111,10 @@ public class ACFBungeeUtil {
         CommandSender requester = issuer.getIssuer();
         String name = ACFUtil.replace(search, ":confirm", "");
 
-        List<ProxiedPlayer> matches = new ArrayList<>(ProxyServer.getInstance().matchPlayer(name));
+        CommandManager manager = issuer.getManager();
+        List<ProxiedPlayer> matches = manager instanceof BungeeCommandManager
+                ? ((BungeeCommandManager) manager).getPlayerDirectory().matchPlayer(name)
+                : new ArrayList<>(ProxyServer.getInstance().matchPlayer(name));
 
         if (matches.size() > 1) {
             String allMatches = matches.stream().map(ProxiedPlayer::getName).collect(Collectors.joining(", "));
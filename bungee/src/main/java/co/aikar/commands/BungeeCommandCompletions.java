@@ -23,13 +23,9 @@
 
 package co.aikar.commands;
 
-import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.CommandSender;
-import net.md_5.bungee.api.ProxyServer;
-import net.md_5.bungee.api.connection.ProxiedPlayer;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -53,21 +49,11 @@ public class BungeeCommandCompletions extends CommandCompletions<BungeeCommandCo
 
             return colors.map(color -> ACFUtil.simplifyString(color.name())).collect(Collectors.toList());
         });
-        registerCompletion("players", c -> {
+        registerAsyncSinkCompletion("players", (c, sink) -> {
             CommandSender sender = c.getSender();
             ACFBungeeUtil.validate(sender, "Sender cannot be null");
-            String input = c.getInput();
 
-            ArrayList<String> matchedPlayers = new ArrayList<>();
-            for (ProxiedPlayer player : ProxyServer.getInstance().getPlayers()) {
-                String name = player.getName();
-                if (ApacheCommonsLangUtil.startsWithIgnoreCase(name, input)) {
-                    matchedPlayers.add(name);
-                }
-            }
-
-            matchedPlayers.sort(String.CASE_INSENSITIVE_ORDER);
-            return matchedPlayers;
+            c.issuer.getManager().getPlayerDirectory().complete(c.getInput(), sink);
         });
     }
 }
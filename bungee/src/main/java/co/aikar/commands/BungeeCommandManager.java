@@ -27,6 +27,7 @@ import co.aikar.commands.apachecommonslang.ApacheCommonsExceptionUtil;
 import co.aikar.commands.config.impl.MessageConfig;
 import lombok.Getter;
 import net.md_5.bungee.api.CommandSender;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.plugin.Plugin;
 import net.md_5.bungee.api.plugin.PluginDescription;
 
@@ -51,6 +52,7 @@ public class BungeeCommandManager extends CommandManager<
     protected Map<String, BungeeRootCommand> registeredCommands = new HashMap<>();
     protected BungeeCommandContexts contexts;
     protected BungeeCommandCompletions completions;
+    protected final PlayerDirectory<ProxiedPlayer> playerDirectory = new PlayerDirectory<>();
 
     public BungeeCommandManager(Plugin plugin) {
         this.plugin = plugin;
@@ -61,6 +63,7 @@ public class BungeeCommandManager extends CommandManager<
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Plugin.class, plugin);
         registerDependency(PluginDescription.class, plugin.getDescription());
+        registerPlayerDirectory();
 
         CC.checkHexColors();
     }
@@ -78,6 +81,23 @@ public class BungeeCommandManager extends CommandManager<
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Plugin.class, plugin);
         registerDependency(PluginDescription.class, plugin.getDescription());
+        registerPlayerDirectory();
+    }
+
+    private void registerPlayerDirectory() {
+        // Players may already be connected if the plugin was loaded late.
+        for (ProxiedPlayer player : this.plugin.getProxy().getPlayers()) {
+            playerDirectory.addPlayer(player.getName(), player);
+        }
+        this.plugin.getProxy().getPluginManager().registerListener(this.plugin, new ACFBungeeListener(this));
+    }
+
+    /**
+     * @return The players of the proxy by name, used to complete and resolve player names. Add a {@link PlayerFeed} to
+     * complete the players of other proxies as well.
+     */
+    public PlayerDirectory<ProxiedPlayer> getPlayerDirectory() {
+        return playerDirectory;
     }
 
     @Override
@@ -115,6 +135,7 @@ public class BungeeCommandManager extends CommandManager<
             String commandName = entry.getKey().toLowerCase();
             BungeeRootCommand bungeeCommand = (BungeeRootCommand) entry.getValue();
             bungeeCommand.getSubCommands().values().removeAll(command.subCommands.values());
+            getRouter().reindex(bungeeCommand);
             if (bungeeCommand.getSubCommands().isEmpty() && bungeeCommand.isRegistered) {
                 unregisterCommand(bungeeCommand);
                 bungeeCommand.isRegistered = false;
@@ -125,6 +146,7 @@ public class BungeeCommandManager extends CommandManager<
 
     public void unregisterCommand(BungeeRootCommand command) {
         this.plugin.getProxy().getPluginManager().unregisterCommand(command);
+        getRouter().remove(command);
     }
 
     public void unregisterCommands() {
@@ -188,7 +188,27 @@ public final class ACFUtil {
         if (str == null) {
             return null;
         }
-        return ACFPatterns.NON_ALPHA_NUMERIC.matcher(str.toLowerCase()).replaceAll("");
+        str = str.toLowerCase();
+        // Same as removing ACFPatterns.NON_ALPHA_NUMERIC, without running a regex.
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            if (!isAlphaNumeric(str.charAt(i))) {
+                StringBuilder sb = new StringBuilder(length);
+                sb.append(str, 0, i);
+                for (int j = i + 1; j < length; j++) {
+                    char c = str.charAt(j);
+                    if (isAlphaNumeric(c)) {
+                        sb.append(c);
+                    }
+                }
+                return sb.toString();
+            }
+        }
+        return str;
+    }
+
+    private boolean isAlphaNumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
 
     public double round(double x, int scale) {
@@ -412,7 +432,7 @@ public final class ACFUtil {
     }
 
     public List<String> enumNames(Class<? extends Enum<?>> cls) {
-        return enumNames(cls.getEnumConstants());
+        return new ArrayList<>(EnumLookup.of(cls).names);
     }
 
     public String combine(String[] args) {
@@ -437,16 +457,8 @@ public final class ACFUtil {
         if (item == null) {
             return null;
         }
-        item = ACFUtil.simplifyString(item);
-        for (Enum<?> s : list.getEnumConstants()) {
-            String simple = ACFUtil.simplifyString(s.name());
-            if (item.equals(simple)) {
-                //noinspection unchecked
-                return (E) s;
-            }
-        }
-
-        return null;
+        //noinspection unchecked
+        return (E) EnumLookup.of(list).simpleMatch(item);
     }
 
     public boolean isTruthy(String test) {
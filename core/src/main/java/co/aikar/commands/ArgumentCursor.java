@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The arguments left to resolve for a command, as a cursor over the original argument array.
+ * <p>
+ * Removing arguments from either end only moves the cursor, so {@link CommandExecutionContext#popFirstArg()} and
+ * {@link CommandExecutionContext#popLastArg()} no longer shift the remaining arguments. This is still a fully mutable
+ * {@link java.util.List} of the remaining arguments, so resolvers working on {@link CommandExecutionContext#getArgs()}
+ * directly keep working; any other modification copies the remaining arguments first, leaving the original array
+ * untouched.
+ */
+class ArgumentCursor extends AbstractList<String> implements RandomAccess {
+    private String[] values;
+    private int start;
+    private int end;
+    private boolean copied;
+
+    /**
+     * @param values The arguments. The array is never modified.
+     */
+    ArgumentCursor(String[] values) {
+        this.values = values;
+        this.start = 0;
+        this.end = values.length;
+    }
+
+    @Override
+    public String get(int index) {
+        checkIndex(index, size());
+        return values[start + index];
+    }
+
+    @Override
+    public int size() {
+        return end - start;
+    }
+
+    @Override
+    public String set(int index, String element) {
+        checkIndex(index, size());
+        ownValues(0);
+        String previous = values[start + index];
+        values[start + index] = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, String element) {
+        checkIndex(index, size() + 1);
+        ownValues(1);
+        System.arraycopy(values, start + index, values, start + index + 1, end - start - index);
+        values[start + index] = element;
+        end++;
+        modCount++;
+    }
+
+    @Override
+    public String remove(int index) {
+        checkIndex(index, size());
+        String removed = values[start + index];
+        if (index == 0) {
+            start++;
+        } else if (index == size() - 1) {
+            end--;
+        } else {
+            ownValues(0);
+            System.arraycopy(values, start + index + 1, values, start + index, end - start - index - 1);
+            values[--end] = null;
+        }
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        start = end;
+        modCount++;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex == 0) {
+            start += toIndex;
+            modCount++;
+        } else if (toIndex == size()) {
+            end = start + fromIndex;
+            modCount++;
+        } else {
+            super.removeRange(fromIndex, toIndex);
+        }
+    }
+
+    /**
+     * Replaces the shared array with a private copy of the remaining arguments before modifying them in place.
+     *
+     * @param extraCapacity How many more arguments the copy must have room for.
+     */
+    private void ownValues(int extraCapacity) {
+        if (copied && end + extraCapacity <= values.length) {
+            return;
+        }
+        int size = size();
+        values = Arrays.copyOfRange(values, start, start + Math.max(size + extraCapacity, size * 2));
+        start = 0;
+        end = size;
+        copied = true;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
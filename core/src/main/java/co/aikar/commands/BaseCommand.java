@@ -35,7 +35,9 @@ import co.aikar.commands.annotation.PreCommand;
 import co.aikar.commands.annotation.Subcommand;
 import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
 import co.aikar.commands.config.impl.MessageConfig;
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import lombok.Getter;
 import org.jetbrains.annotations.Nullable;
@@ -54,7 +56,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Stack;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -84,18 +85,17 @@ public abstract class BaseCommand {
 
     /**
      * A map of all the registered commands for this base command, keyed to each potential subcommand to access it.
+     * <p>
+     * This is an immutable snapshot that is replaced as a whole whenever a subcommand is registered, so it may be read
+     * from any thread without locking.
      */
-    final SetMultimap<String, RegisteredCommand> subCommands = HashMultimap.create();
+    volatile SetMultimap<String, RegisteredCommand> subCommands = ImmutableSetMultimap.of();
     final Set<BaseCommand> subScopes = new HashSet<>();
 
     /**
      * A map of flags to pass to Context Resolution for every parameter of the type. This is like an automatic @Flags on each.
      */
     final Map<Class<?>, String> contextFlags = new HashMap<>();
-    /**
-     * The last operative context data of this command. This may be null if this command is not currently being executed.
-     */
-    private final ThreadLocal<CommandOperationContext> lastCommandOperationContext = new ThreadLocal<>();
     /**
      * The permissions of the command.
      */
@@ -135,6 +135,11 @@ public abstract class BaseCommand {
      */
     @Nullable
     private Method preCommandHandler;
+    /**
+     * How to invoke the {@link #preCommandHandler} and what to pass to each of its parameters, bound when registered.
+     */
+    @Nullable
+    private PreCommandBinding preCommandBinding;
     /**
      * What root command the user actually entered to access the currently executing command
      */
@@ -224,29 +229,17 @@ public abstract class BaseCommand {
         return CATCHUNKNOWN.equals(key) || DEFAULT.equals(key);
     }
 
-    /**
-     * Gets the actual args in string form the user typed
-     * This returns a list of all tab complete options which are possible with the given argument and commands.
-     *
-     * @param arg  Argument which was pressed tab on.
-     * @param cmds The possibilities to return.
-     * @return All possible options. This may be empty.
-     */
-    private static List<String> filterTabComplete(String arg, List<String> cmds) {
-        return cmds.stream()
-                .distinct()
-                .filter(cmd -> cmd != null && (arg.isEmpty() || ApacheCommonsLangUtil.startsWithIgnoreCase(cmd, arg)))
-                .collect(Collectors.toList());
-    }
-
     /**
      * Returns a reference to the last used CommandOperationContext.
      * This method is ThreadLocal, in that it can only be used on a thread that has executed a command
+     * <p>
+     * The context is a snapshot of the operation, so it can be kept past the end of the operation.
      *
      * @return
      */
     public CommandOperationContext getLastCommandOperationContext() {
-        return lastCommandOperationContext.get();
+        CommandOperationContext context = CommandOperationStack.get().peek(this);
+        return context != null ? context.copy() : null;
     }
 
     /**
@@ -338,7 +331,7 @@ public abstract class BaseCommand {
                     subScope.parentCommand = this;
                     this.subScopes.add(subScope);
                     subScope.onRegister(manager, cmd);
-                    this.subCommands.putAll(subScope.subCommands);
+                    putSubCommands(subScope.subCommands);
                     this.registeredCommands.putAll(subScope.registeredCommands);
                 } else {
                     this.manager.log(LogLevel.ERROR, "Could not find a subcommand ctor for " + clazz.getName());
@@ -390,7 +383,7 @@ public abstract class BaseCommand {
             if (hasCatchUnknown || (!foundCatchUnknown && helpCommand != null)) {
                 if (!foundCatchUnknown) {
                     if (hasCatchUnknown) {
-                        this.subCommands.get(CATCHUNKNOWN).clear();
+                        removeSubCommands(CATCHUNKNOWN);
                         foundCatchUnknown = true;
                     }
                     registerSubcommand(method, CATCHUNKNOWN);
@@ -400,6 +393,7 @@ public abstract class BaseCommand {
             } else if (preCommand) {
                 if (this.preCommandHandler == null) {
                     this.preCommandHandler = method;
+                    this.preCommandBinding = new PreCommandBinding(manager, method);
                 } else {
                     ACFUtil.sneaky(new IllegalStateException("Multiple @PreCommand commands, duplicate on " + method.getDeclaringClass().getName() + "#" + method.getName()));
                 }
@@ -494,9 +488,11 @@ public abstract class BaseCommand {
         String cmdName = aliasNames != null ? aliasNames[0] : this.commandName + " ";
         RegisteredCommand cmd = manager.createRegisteredCommand(this, cmdName, method, prefSubCommand);
 
+        ImmutableSetMultimap.Builder<String, RegisteredCommand> newSubCommands = ImmutableSetMultimap.builder();
         for (String subcmd : cmdList) {
-            subCommands.put(subcmd, cmd);
+            newSubCommands.put(subcmd, cmd);
         }
+        putSubCommands(newSubCommands.build());
         cmd.addSubcommands(cmdList);
 
         if (aliasNames != null) {
@@ -506,6 +502,29 @@ public abstract class BaseCommand {
         }
     }
 
+    /**
+     * Publishes a new snapshot of {@link #subCommands} containing the given commands.
+     *
+     * @param commands The commands to add, keyed by subcommand.
+     */
+    private void putSubCommands(Multimap<String, RegisteredCommand> commands) {
+        this.subCommands = ImmutableSetMultimap.<String, RegisteredCommand>builder()
+                .putAll(this.subCommands)
+                .putAll(commands)
+                .build();
+    }
+
+    /**
+     * Publishes a new snapshot of {@link #subCommands} without any command registered to the given subcommand.
+     *
+     * @param subCommand The subcommand to remove.
+     */
+    private void removeSubCommands(String subCommand) {
+        SetMultimap<String, RegisteredCommand> subCommands = LinkedHashMultimap.create(this.subCommands);
+        subCommands.removeAll(subCommand);
+        this.subCommands = ImmutableSetMultimap.copyOf(subCommands);
+    }
+
     void execute(CommandIssuer issuer, CommandRouter.CommandRouteResult command) {
         try {
             CommandOperationContext commandContext = preCommandOperation(issuer, command.commandLabel, command.args, false);
@@ -520,8 +539,7 @@ public abstract class BaseCommand {
      * This is ran after any command operation has been performed.
      */
     private void postCommandOperation() {
-        CommandManager.commandOperationContext.get().pop();
-        lastCommandOperationContext.set(null);
+        CommandOperationStack.get().pop();
         execSubcommand = null;
         execLabel = null;
         origArgs = new String[]{};
@@ -535,14 +553,10 @@ public abstract class BaseCommand {
      *                     When there is multiple aliases, this is which alias was used
      * @param args         The arguments passed to the command when executing it.
      * @param isAsync      Whether the command is executed off of the main thread.
-     * @return The context which is being registered to the {@link CommandManager}'s {@link
-     * CommandManager#commandOperationContext thread local stack}.
+     * @return The context which is being pushed to the {@link CommandOperationStack} of the current thread.
      */
     private CommandOperationContext preCommandOperation(CommandIssuer issuer, String commandLabel, String[] args, boolean isAsync) {
-        Stack<CommandOperationContext> contexts = CommandManager.commandOperationContext.get();
-        CommandOperationContext context = this.manager.createCommandOperationContext(this, issuer, commandLabel, args, isAsync);
-        contexts.push(context);
-        lastCommandOperationContext.set(context);
+        CommandOperationContext context = CommandOperationStack.get().push(this.manager, this, issuer, commandLabel, args, isAsync);
         execSubcommand = null;
         execLabel = commandLabel;
         origArgs = args;
@@ -602,6 +616,8 @@ public abstract class BaseCommand {
      * @param args         All arguments entered by the user.
      * @param isAsync      Whether this is run off of the main thread.
      * @return The possibilities to tab complete in no particular order.
+     * @throws CommandCompletions.SyncCompletionRequired If run off of the main thread while some of the completions
+     *                                                   aren't async-safe, in which case it has to be run on it instead.
      */
     @SuppressWarnings("WeakerAccess")
     public List<String> tabComplete(CommandIssuer issuer, String commandLabel, String[] args, boolean isAsync)
@@ -611,56 +627,58 @@ public abstract class BaseCommand {
 
     List<String> tabComplete(CommandIssuer issuer, RootCommand rootCommand, String[] args, boolean isAsync)
             throws IllegalArgumentException {
+        CompletionSink sink = new CompletionSink(args.length > 0 ? args[args.length - 1] : "", manager.getCompletionLimit());
+        tabComplete(issuer, rootCommand, args, isAsync, sink);
+        if (sink.isSyncRequired()) {
+            //noinspection deprecation
+            throw new CommandCompletions.SyncCompletionRequired();
+        }
+        return sink.completeNow(sink.toFuture());
+    }
+
+    void tabComplete(CommandIssuer issuer, RootCommand rootCommand, String[] args, boolean isAsync, CompletionSink sink)
+            throws IllegalArgumentException {
+        sink.startDeadline(manager);
+        completeArguments(manager, issuer, rootCommand, args, isAsync, sink);
+    }
+
+    /**
+     * Completes the arguments of the commands of a root matching the input, routing the input once over the subcommands
+     * of all of the children of the root, so only the commands actually matching it are completed.
+     *
+     * @param manager     The manager of the root.
+     * @param issuer      The user who executed the tabcomplete.
+     * @param rootCommand The root command being completed.
+     * @param args        The arguments the user has typed so far.
+     * @param isAsync     Whether this is run off of the main thread.
+     * @param sink        The sink collecting the completions.
+     */
+    static void completeArguments(CommandManager manager, CommandIssuer issuer, RootCommand rootCommand, String[] args, boolean isAsync, CompletionSink sink) {
         if (args.length == 0) {
             args = new String[]{""};
         }
 
         String commandLabel = rootCommand.getCommandName();
-        try {
-            CommandRouter router = manager.getRouter();
-
-            preCommandOperation(issuer, commandLabel, args, isAsync);
-
-            final RouteSearch search = router.routeCommand(rootCommand, commandLabel, args, true);
-
-            final List<String> cmds = new ArrayList<>();
-            if (search != null) {
-                for (RegisteredCommand<?> command : search.commands) {
-                    cmds.addAll(completeCommand(issuer, command, search.args, commandLabel, isAsync));
+        final RouteSearch search = manager.getRouter().routeCommand(rootCommand, commandLabel, args, true);
+        if (search == null) {
+            return;
+        }
+        if (isAsync) {
+            // Decide the thread up front, so nothing is completed if the request has to move to the main thread.
+            CommandCompletions<?> completions = manager.getCommandCompletions();
+            for (RegisteredCommand<?> command : search.commands) {
+                if (canComplete(issuer, command, search.args) && completions.requiresSync(command, issuer, search.args)) {
+                    sink.requireSync();
+                    return;
                 }
             }
-
-            return filterTabComplete(args[args.length - 1], cmds);
-        } finally {
-            postCommandOperation();
         }
-    }
-
-    /**
-     * Gets all subcommands which are possible to tabcomplete.
-     *
-     * @param issuer The command issuer.
-     * @param args
-     * @return
-     */
-    List<String> getCommandsForCompletion(CommandIssuer issuer, String[] args) {
-        final Set<String> cmds = new HashSet<>();
-        final int cmdIndex = Math.max(0, args.length - 1);
-        String argString = ApacheCommonsLangUtil.join(args, " ").toLowerCase();
-
-        for (Map.Entry<String, RegisteredCommand> entry : subCommands.entries()) {
-            final String key = entry.getKey();
-            if (!key.startsWith(argString) || isSpecialSubcommand(key)) continue;
-
-            final RegisteredCommand value = entry.getValue();
-            if (!value.hasPermission(issuer) || value.isPrivate) {
-                continue;
+        for (RegisteredCommand<?> command : search.commands) {
+            if (sink.isFull() || sink.isExpired()) {
+                return;
             }
-
-            String[] split = ACFPatterns.SPACE.split(value.prefSubCommand);
-            cmds.add(split[cmdIndex]);
+            command.scope.completeCommand(issuer, command, args, search.args, commandLabel, isAsync, sink);
         }
-        return new ArrayList<>(cmds);
     }
 
     /**
@@ -668,22 +686,33 @@ public abstract class BaseCommand {
      *
      * @param issuer       The user who executed this.
      * @param cmd          The command to be completed.
-     * @param args         All arguments given by the user.
+     * @param origArgs     All arguments given by the user.
+     * @param args         The arguments given to the command, after its subcommand.
      * @param commandLabel The command name the user used.
      * @param isAsync      Whether the command was executed async.
-     * @return All results to complete the command.
+     * @param sink         The sink collecting the results to complete the command.
      */
-    private List<String> completeCommand(CommandIssuer issuer, RegisteredCommand cmd, String[] args, String commandLabel, boolean isAsync) {
-        if (!cmd.hasPermission(issuer) || args.length == 0 || cmd.parameters.length == 0) {
-            return Collections.emptyList();
+    private void completeCommand(CommandIssuer issuer, RegisteredCommand cmd, String[] origArgs, String[] args, String commandLabel, boolean isAsync, CompletionSink sink) {
+        if (!canComplete(issuer, cmd, args)) {
+            return;
         }
 
-        if (!cmd.parameters[cmd.parameters.length - 1].consumesRest && args.length > cmd.consumeInputResolvers) {
-            return Collections.emptyList();
+        try {
+            preCommandOperation(issuer, commandLabel, origArgs, isAsync);
+            manager.getCommandCompletions().of(cmd, issuer, args, isAsync, sink);
+        } finally {
+            postCommandOperation();
         }
+    }
 
-        List<String> cmds = manager.getCommandCompletions().of(cmd, issuer, args, isAsync);
-        return filterTabComplete(args[args.length - 1], cmds);
+    /**
+     * @return Whether the issuer may complete the command, and the arguments are within its parameters.
+     */
+    private static boolean canComplete(CommandIssuer issuer, RegisteredCommand cmd, String[] args) {
+        if (!cmd.hasPermission(issuer) || args.length == 0 || cmd.parameters.length == 0) {
+            return false;
+        }
+        return cmd.parameters[cmd.parameters.length - 1].consumesRest || args.length <= cmd.consumeInputResolvers;
     }
 
     /**
@@ -696,33 +725,81 @@ public abstract class BaseCommand {
      * @return Whether something went wrong.
      */
     private boolean checkPrecommand(CommandOperationContext commandOperationContext, RegisteredCommand cmd, CommandIssuer issuer, String[] args) {
-        Method pre = this.preCommandHandler;
+        PreCommandBinding pre = this.preCommandBinding;
         if (pre != null) {
             try {
-                Class<?>[] types = pre.getParameterTypes();
-                Object[] parameters = new Object[pre.getParameterCount()];
-                for (int i = 0; i < parameters.length; i++) {
-                    Class<?> type = types[i];
-                    Object issuerObject = issuer.getIssuer();
-                    if (manager.isCommandIssuer(type) && type.isAssignableFrom(issuerObject.getClass())) {
+                return (boolean) pre.invoker.invoke(this, pre.bind(issuer, cmd, args));
+            } catch (Exception e) {
+                this.manager.log(LogLevel.ERROR, "Exception encountered while command pre-processing", e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The argument binding plan of a {@link PreCommand} handler. What each parameter receives only depends on its
+     * type, so it is worked out once instead of inspecting the parameter types on every command.
+     */
+    private static class PreCommandBinding {
+        private enum Binding {
+            ISSUER, COMMAND_ISSUER, REGISTERED_COMMAND, ARGS, NONE
+        }
+
+        private final MethodInvoker invoker;
+        private final Class<?>[] types;
+        /**
+         * Whether the parameter may take the platform issuer, when it is an instance of the parameter type.
+         */
+        private final boolean[] acceptsIssuer;
+        /**
+         * What the parameter receives otherwise.
+         */
+        private final Binding[] fallbacks;
+
+        PreCommandBinding(CommandManager manager, Method method) {
+            this.invoker = new MethodInvoker(method);
+            this.types = method.getParameterTypes();
+            this.acceptsIssuer = new boolean[types.length];
+            this.fallbacks = new Binding[types.length];
+            for (int i = 0; i < types.length; i++) {
+                Class<?> type = types[i];
+                acceptsIssuer[i] = manager.isCommandIssuer(type);
+                if (CommandIssuer.class.isAssignableFrom(type)) {
+                    fallbacks[i] = Binding.COMMAND_ISSUER;
+                } else if (RegisteredCommand.class.isAssignableFrom(type)) {
+                    fallbacks[i] = Binding.REGISTERED_COMMAND;
+                } else if (String[].class.isAssignableFrom(type)) {
+                    fallbacks[i] = Binding.ARGS;
+                } else {
+                    fallbacks[i] = Binding.NONE;
+                }
+            }
+        }
+
+        Object[] bind(CommandIssuer issuer, RegisteredCommand cmd, String[] args) {
+            Object issuerObject = issuer.getIssuer();
+            Object[] parameters = new Object[types.length];
+            for (int i = 0; i < parameters.length; i++) {
+                Binding binding = acceptsIssuer[i] && types[i].isInstance(issuerObject) ? Binding.ISSUER : fallbacks[i];
+                switch (binding) {
+                    case ISSUER:
                         parameters[i] = issuerObject;
-                    } else if (CommandIssuer.class.isAssignableFrom(type)) {
+                        break;
+                    case COMMAND_ISSUER:
                         parameters[i] = issuer;
-                    } else if (RegisteredCommand.class.isAssignableFrom(type)) {
+                        break;
+                    case REGISTERED_COMMAND:
                         parameters[i] = cmd;
-                    } else if (String[].class.isAssignableFrom((type))) {
+                        break;
+                    case ARGS:
                         parameters[i] = args;
-                    } else {
-                        parameters[i] = null;
-                    }
+                        break;
+                    default:
+                        break;
                 }
-
-                return (boolean) pre.invoke(this, parameters);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                this.manager.log(LogLevel.ERROR, "Exception encountered while command pre-processing", e);
             }
+            return parameters;
         }
-        return false;
     }
 
     public CommandHelp getCommandHelp() {
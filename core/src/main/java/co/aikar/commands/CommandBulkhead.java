@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An {@link Executor} limiting how many tasks may run at once on another executor, and how many more may wait for
+ * their turn, so a slow group of {@link co.aikar.commands.annotation.Async} commands can't starve everything else
+ * sharing that executor.
+ * <p>
+ * Register one with {@link CommandManager#registerBulkhead(String, Executor, int, int, RejectionPolicy)} and name it in
+ * {@link co.aikar.commands.annotation.Async#value()} on the commands or command classes it should isolate.
+ */
+public class CommandBulkhead implements Executor {
+
+    public enum RejectionPolicy {
+        /**
+         * Rejects the task with a {@link RejectedExecutionException}. Commands rejected this way tell the issuer that the
+         * command is busy.
+         */
+        ABORT,
+        /**
+         * Runs the task right away on the thread submitting it.
+         */
+        CALLER_RUNS,
+        /**
+         * Silently drops the task.
+         */
+        DISCARD
+    }
+
+    /**
+     * A task told when the executor of a bulkhead rejects it, instead of having the exception thrown at whoever handed
+     * it over. Tasks may wait in the queue until another one finishes, so by then nobody is left to catch it.
+     */
+    public interface RejectableTask extends Runnable {
+        void rejected(RejectedExecutionException e);
+    }
+
+    private final String name;
+    private final Executor executor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final RejectionPolicy rejectionPolicy;
+
+    private final Queue<Task> queue = new ConcurrentLinkedQueue<>();
+    /**
+     * Tasks accepted and not finished yet, queued or running.
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+
+    /**
+     * @param name            The name of this bulkhead, used in rejection messages.
+     * @param executor        The executor the tasks are run on.
+     * @param maxConcurrent   The maximum number of tasks running at once.
+     * @param maxQueued       The maximum number of tasks waiting for one of the running ones to finish.
+     * @param rejectionPolicy What to do with tasks submitted while the queue is full.
+     */
+    public CommandBulkhead(String name, Executor executor, int maxConcurrent, int maxQueued, RejectionPolicy rejectionPolicy) {
+        if (maxConcurrent < 1 || maxQueued < 0) {
+            throw new IllegalArgumentException("A bulkhead must allow at least one running task and a non-negative queue size");
+        }
+        this.name = name;
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueued = maxQueued;
+        this.rejectionPolicy = rejectionPolicy;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (admitted.incrementAndGet() > maxConcurrent + maxQueued) {
+            admitted.decrementAndGet();
+            rejected.increment();
+            switch (rejectionPolicy) {
+                case CALLER_RUNS:
+                    command.run();
+                    return;
+                case DISCARD:
+                    return;
+                default:
+                    throw new RejectedExecutionException("Bulkhead " + name + " is full");
+            }
+        }
+
+        queued.incrementAndGet();
+        Task task = new Task(command);
+        queue.add(task);
+        drain(task);
+    }
+
+    /**
+     * Hands queued tasks over to the executor while there is room for them to run. A task the executor rejects is told
+     * so if it is a {@link RejectableTask}, and otherwise only the task being submitted has its rejection thrown, once
+     * the others were handed over.
+     *
+     * @param submitted the task being submitted on this thread, or null when a finished task makes room
+     */
+    private void drain(Task submitted) {
+        RejectedExecutionException submittedRejection = null;
+        while (!queue.isEmpty()) {
+            int running = active.get();
+            if (running >= maxConcurrent) {
+                return;
+            }
+            if (!active.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Task task = queue.poll();
+            if (task == null) {
+                active.decrementAndGet();
+                continue;
+            }
+            queued.decrementAndGet();
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                active.decrementAndGet();
+                admitted.decrementAndGet();
+                rejected.increment();
+                if (task.command instanceof RejectableTask) {
+                    ((RejectableTask) task.command).rejected(e);
+                } else if (task == submitted) {
+                    submittedRejection = e;
+                }
+            }
+        }
+        if (submittedRejection != null) {
+            throw submittedRejection;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    /**
+     * @return How many tasks are waiting for their turn to run.
+     */
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    /**
+     * @return How many tasks are running.
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return The average time completed tasks spent waiting in the queue, in nanoseconds.
+     */
+    public long getAverageQueuedNanos() {
+        long count = completed.sum();
+        return count > 0 ? queuedNanos.sum() / count : 0;
+    }
+
+    /**
+     * @return The average time completed tasks took to run, in nanoseconds.
+     */
+    public long getAverageRunNanos() {
+        long count = completed.sum();
+        return count > 0 ? runNanos.sum() / count : 0;
+    }
+
+    private class Task implements Runnable {
+        private final Runnable command;
+        private final long submitted = System.nanoTime();
+
+        Task(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            long started = System.nanoTime();
+            try {
+                command.run();
+            } finally {
+                queuedNanos.add(started - submitted);
+                runNanos.add(System.nanoTime() - started);
+                completed.increment();
+                active.decrementAndGet();
+                admitted.decrementAndGet();
+                drain(null);
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ package co.aikar.commands;
 import lombok.Getter;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,28 +36,38 @@ public class CommandCompletionContext<I extends CommandIssuer> {
     protected final I issuer;
     @Getter
     private final String input;
-    @Getter
-    private final String config;
-    @Getter
-    private final Map<String, String> configs = new HashMap<>();
+    private final String rawConfig;
+    private ParsedConfig parsedConfig;
     private final List<String> args;
 
     CommandCompletionContext(RegisteredCommand command, I issuer, String input, String config, String[] args) {
         this.command = command;
         this.issuer = issuer;
         this.input = input;
-        if (config != null) {
-            String[] configs = ACFPatterns.COMMA.split(config);
-            for (String conf : configs) {
-                String[] confsplit = ACFPatterns.EQUALS.split(conf, 2);
-                this.configs.put(confsplit[0].toLowerCase(), confsplit.length > 1 ? confsplit[1] : null);
-            }
-            this.config = configs[0];
-        } else {
-            this.config = null;
+        this.rawConfig = config;
+        this.args = Arrays.asList(args);
+    }
+
+    /**
+     * Uses the config parsed when the completion was compiled, instead of parsing it again on first use.
+     */
+    void setParsedConfig(ParsedConfig parsedConfig) {
+        this.parsedConfig = parsedConfig;
+    }
+
+    private ParsedConfig getParsedConfig() {
+        if (this.parsedConfig == null) {
+            this.parsedConfig = ParsedConfig.parse(this.rawConfig, new HashMap<>());
         }
+        return this.parsedConfig;
+    }
 
-        this.args = Arrays.asList(args);
+    public String getConfig() {
+        return getParsedConfig().config;
+    }
+
+    public Map<String, String> getConfigs() {
+        return getParsedConfig().configs;
     }
 
     public String getConfig(String key) {
@@ -64,11 +75,11 @@ public class CommandCompletionContext<I extends CommandIssuer> {
     }
 
     public String getConfig(String key, String def) {
-        return this.configs.getOrDefault(key.toLowerCase(), def);
+        return getConfigs().getOrDefault(key.toLowerCase(), def);
     }
 
     public boolean hasConfig(String key) {
-        return this.configs.containsKey(key.toLowerCase());
+        return getConfigs().containsKey(key.toLowerCase());
     }
 
     public <T> T getContextValue(Class<? extends T> clazz) throws InvalidCommandArgument {
@@ -120,6 +131,35 @@ public class CommandCompletionContext<I extends CommandIssuer> {
     }
 
     public boolean isAsync() {
-        return CommandManager.getCurrentCommandOperationContext().isAsync();
+        return CommandOperationStack.get().peek().isAsync();
+    }
+
+    static final class ParsedConfig {
+        final String config;
+        final Map<String, String> configs;
+
+        private ParsedConfig(String config, Map<String, String> configs) {
+            this.config = config;
+            this.configs = configs;
+        }
+
+        /**
+         * Parses a raw config such as {@code foo,key=value} into its first value and its keyed values.
+         */
+        static ParsedConfig parse(String config, Map<String, String> configs) {
+            if (config == null) {
+                return new ParsedConfig(null, configs);
+            }
+            String[] split = ACFPatterns.COMMA.split(config);
+            for (String conf : split) {
+                String[] confsplit = ACFPatterns.EQUALS.split(conf, 2);
+                configs.put(confsplit[0].toLowerCase(), confsplit.length > 1 ? confsplit[1] : null);
+            }
+            return new ParsedConfig(split[0], configs);
+        }
+
+        ParsedConfig unmodifiable() {
+            return new ParsedConfig(config, Collections.unmodifiableMap(configs));
+        }
     }
 }
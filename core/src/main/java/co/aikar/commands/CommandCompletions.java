@@ -33,6 +33,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -42,8 +49,11 @@ import java.util.stream.IntStream;
 public class CommandCompletions<C extends CommandCompletionContext> {
     private static final String DEFAULT_ENUM_ID = "@__defaultenum__";
     private final CommandManager manager;
-    private final Map<String, CommandCompletionHandler> completionMap = new HashMap<>();
-    private final Map<Class<?>, String> defaultCompletions = new HashMap<>();
+    // Immutable snapshots, replaced as a whole on registration so completion lookups never lock.
+    private volatile Map<String, CommandCompletionHandler> completionMap = Collections.emptyMap();
+    private volatile Map<Class<?>, String> defaultCompletions = Collections.emptyMap();
+    private volatile Map<String, CompletionCache> caches = Collections.emptyMap();
+    private final Map<String, CompletionSpec> compiledSpecs = new ConcurrentHashMap<>();
 
     public CommandCompletions(CommandManager manager) {
         this.manager = manager;
@@ -77,7 +87,7 @@ public class CommandCompletions<C extends CommandCompletionContext> {
      * @return
      */
     public CommandCompletionHandler registerCompletion(String id, CommandCompletionHandler<C> handler) {
-        return this.completionMap.put(prepareCompletionId(id), handler);
+        return putCompletion(prepareCompletionId(id), handler);
     }
 
     /**
@@ -89,7 +99,7 @@ public class CommandCompletions<C extends CommandCompletionContext> {
      * @return
      */
     public void registerCompletion(String id, Class<?> clazz, CommandCompletionHandler<C> handler) {
-        this.completionMap.put(prepareCompletionId(id), handler);
+        putCompletion(prepareCompletionId(id), handler);
         setDefaultCompletion(id, clazz);
     }
 
@@ -109,7 +119,158 @@ public class CommandCompletions<C extends CommandCompletionContext> {
      * @return
      */
     public CommandCompletionHandler registerAsyncCompletion(String id, AsyncCommandCompletionHandler<C> handler) {
-        return this.completionMap.put(prepareCompletionId(id), handler);
+        return putCompletion(prepareCompletionId(id), handler);
+    }
+
+    /**
+     * Register a completion handler running its lookup on the async executor of the given name, see
+     * {@link CommandManager#getAsyncExecutor(String)}, so the thread requesting completions is never blocked by it.
+     *
+     * @param id
+     * @param executor
+     * @param handler
+     * @return
+     */
+    public CommandCompletionHandler registerAsyncCompletion(String id, String executor, AsyncCommandCompletionHandler<C> handler) {
+        if (handler instanceof FutureCompletionHandler) {
+            return registerFutureCompletion(id, (FutureCompletionHandler<C>) handler);
+        }
+        return registerFutureCompletion(id, context -> {
+            CompletableFuture<Collection<String>> future = new CompletableFuture<>();
+            CommandOperationStack.CapturedOperation operation = CommandOperationStack.capture();
+            try {
+                manager.getAsyncExecutor(executor).execute(new CommandBulkhead.RejectableTask() {
+                    @Override
+                    public void run() {
+                        // Skip lookups cancelled by the completion deadline while they were queued.
+                        if (future.isDone()) {
+                            return;
+                        }
+                        operation.run(() -> {
+                            try {
+                                future.complete(handler.getCompletions(context));
+                            } catch (Throwable t) {
+                                future.completeExceptionally(t);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void rejected(RejectedExecutionException e) {
+                        future.complete(Collections.emptyList());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.complete(Collections.emptyList());
+            }
+            return future;
+        });
+    }
+
+    /**
+     * Register a completion handler returning a future of its values, for lookups that complete on their own, such as
+     * a database or a web request. The completions of the request are sent once the future is done.
+     * <p>
+     * The context is only valid until the future was returned, so read everything needed from it beforehand.
+     *
+     * @param id
+     * @param handler
+     * @return
+     */
+    public CommandCompletionHandler registerFutureCompletion(String id, FutureCompletionHandler<C> handler) {
+        return putCompletion(prepareCompletionId(id), handler);
+    }
+
+    /**
+     * Register a completion handler pushing its values into the sink of the request, so it can stop as soon as enough
+     * completions were found.
+     *
+     * @param id
+     * @param handler
+     * @return
+     */
+    public CommandCompletionHandler registerSinkCompletion(String id, CompletionSinkHandler<C> handler) {
+        return putCompletion(prepareCompletionId(id), handler);
+    }
+
+    /**
+     * Register a completion handler pushing its values into the sink of the request, which is safe to be executed
+     * asynchronously.
+     *
+     * @param id
+     * @param handler
+     * @return
+     * @see #registerAsyncCompletion(String, AsyncCommandCompletionHandler)
+     */
+    public CommandCompletionHandler registerAsyncSinkCompletion(String id, AsyncCompletionSinkHandler<C> handler) {
+        return putCompletion(prepareCompletionId(id), handler);
+    }
+
+    private synchronized CommandCompletionHandler putCompletion(String id, CommandCompletionHandler handler) {
+        Map<String, CommandCompletionHandler> completionMap = new HashMap<>(this.completionMap);
+        CommandCompletionHandler previous = completionMap.put(id, handler);
+        this.completionMap = Collections.unmodifiableMap(completionMap);
+        CompletionCache cache = this.caches.get(id);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        return previous;
+    }
+
+    /**
+     * Caches the results of a completion handler, sharing them between all issuers.
+     *
+     * @param id   the id of the completion to cache
+     * @param ttl  how long results are served before looking them up again
+     * @param unit the unit of the TTL
+     * @return the cache, exposing its hit and miss counts
+     * @see #enableCaching(String, long, long, TimeUnit, int, Function)
+     */
+    public CompletionCache enableCaching(String id, long ttl, TimeUnit unit) {
+        return enableCaching(id, ttl, 0, unit, 256, null);
+    }
+
+    /**
+     * Caches the results of a completion handler, so a slow lookup such as a database query isn't repeated on every
+     * keystroke of every issuer. Results are keyed by the completion config and the issuer scope, but not by the input,
+     * so only cache handlers whose results don't depend on it.
+     * <p>
+     * Stale results are reloaded in the background on the default async executor if the handler was registered with
+     * {@link #registerAsyncCompletion(String, AsyncCommandCompletionHandler)}, where the handler can't rely on the
+     * current {@link CommandOperationContext}. Other handlers are reloaded on the next request instead, while async
+     * requests that can't run them are served the stale result.
+     *
+     * @param id      the id of the completion to cache
+     * @param ttl     how long results are served before looking them up again
+     * @param stale   how long after the TTL results may still be served while being reloaded
+     * @param unit    the unit of the TTL and stale window
+     * @param maxSize how many results are kept at most
+     * @param scope   maps issuers to the key their results are shared by, such as their unique id or permission group,
+     *                or null to share results between all issuers
+     * @return the cache, exposing its hit and miss counts
+     */
+    public CompletionCache enableCaching(String id, long ttl, long stale, TimeUnit unit, int maxSize, Function<CommandIssuer, Object> scope) {
+        id = prepareCompletionId(id);
+        CompletionCache cache = new CompletionCache(id, unit.toNanos(ttl), unit.toNanos(stale), maxSize, scope);
+        synchronized (this) {
+            Map<String, CompletionCache> caches = new HashMap<>(this.caches);
+            caches.put(id, cache);
+            this.caches = Collections.unmodifiableMap(caches);
+        }
+        return cache;
+    }
+
+    public synchronized void disableCaching(String id) {
+        Map<String, CompletionCache> caches = new HashMap<>(this.caches);
+        caches.remove(prepareCompletionId(id));
+        this.caches = Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * @return the cache of a completion, or null if its results are not cached
+     */
+    public CompletionCache getCompletionCache(String id) {
+        return this.caches.get(prepareCompletionId(id));
     }
 
     /**
@@ -150,14 +311,15 @@ public class CommandCompletions<C extends CommandCompletionContext> {
     }
 
     /**
-     * Register a static list of command completions that will never change
+     * Register a static list of command completions that will never change.
+     * The values are copied and indexed, so only those starting with the input are looked at while completing.
      *
      * @param id
      * @param completions
      * @return
      */
     public CommandCompletionHandler registerStaticCompletion(String id, Collection<String> completions) {
-        return registerAsyncCompletion(id, x -> completions);
+        return putCompletion(prepareCompletionId(id), new StaticCompletionHandler(completions));
     }
 
     /**
@@ -178,117 +340,193 @@ public class CommandCompletions<C extends CommandCompletionContext> {
             throw new IllegalStateException("Completion not registered for " + id);
         }
 
-        for (Class clazz : classes) {
-            defaultCompletions.put(clazz, id);
+        synchronized (this) {
+            Map<Class<?>, String> defaultCompletions = new HashMap<>(this.defaultCompletions);
+            for (Class clazz : classes) {
+                defaultCompletions.put(clazz, id);
+            }
+            this.defaultCompletions = Collections.unmodifiableMap(defaultCompletions);
         }
     }
 
+    /**
+     * @return the current snapshot of the completion handlers, replaced whenever one is registered
+     */
+    Map<String, CommandCompletionHandler> getCompletionHandlers() {
+        return this.completionMap;
+    }
+
     @NotNull
     private static String prepareCompletionId(String id) {
         return (id.startsWith("@") ? "" : "@") + id.toLowerCase();
     }
 
-    @NotNull
-    List<String> of(RegisteredCommand cmd, CommandIssuer sender, String[] args, boolean isAsync) {
-        String[] completions = ACFPatterns.SPACE.split(cmd.complete);
-        final int argIndex = args.length - 1;
+    void of(RegisteredCommand cmd, CommandIssuer sender, String[] args, boolean isAsync, CompletionSink sink) {
+        CompletionSpec spec = findCompletionSpec(cmd, args);
+        if (spec == null) {
+            sink.add(args[args.length - 1]);
+            return;
+        }
+
+        getCompletionValues(cmd, sender, spec, args, isAsync, sink);
+    }
 
-        String input = args[argIndex];
+    /**
+     * @return The completion of the argument being completed, or null if the input is its only completion.
+     */
+    CompletionSpec findCompletionSpec(RegisteredCommand cmd, String[] args) {
+        CompletionSpec[] specs = cmd.getCompletionSpecs(this);
+        final int argIndex = args.length - 1;
 
-        String completion = argIndex < completions.length ? completions[argIndex] : null;
-        if (completion == null || completion.isEmpty() || "*".equals(completion)) {
-            completion = findDefaultCompletion(cmd, args);
+        CompletionSpec spec = argIndex < specs.length ? specs[argIndex] : null;
+        if (spec == null || spec.isDefault) {
+            String completion = findDefaultCompletion(cmd, args);
+            spec = completion != null ? compile(completion) : null;
         }
 
-        if (completion == null && completions.length > 0) {
-            String last = completions[completions.length - 1];
-            if (last.startsWith("repeat@")) {
-                completion = last;
-            } else if (argIndex >= completions.length && cmd.parameters[cmd.parameters.length - 1].consumesRest) {
-                completion = last;
+        if (spec == null && specs.length > 0) {
+            CompletionSpec last = specs[specs.length - 1];
+            if (last.repeat) {
+                spec = last;
+            } else if (argIndex >= specs.length && cmd.parameters[cmd.parameters.length - 1].consumesRest) {
+                spec = last;
             }
         }
+        return spec;
+    }
 
-        if (completion == null) {
-            return Collections.singletonList(input);
+    /**
+     * Tells whether completing the argument has to run on the main thread, because its completion has handlers that
+     * aren't async-safe, without cached values to serve instead.
+     */
+    boolean requiresSync(RegisteredCommand cmd, CommandIssuer sender, String[] args) {
+        CompletionSpec spec = findCompletionSpec(cmd, args);
+        if (spec == null) {
+            return false;
         }
+        for (CompletionSpec.Token token : spec.getSyncTokens(this.completionMap)) {
+            CompletionCache cache = this.caches.get(token.id);
+            if (cache == null || !cache.contains(token.config, sender)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        return getCompletionValues(cmd, sender, completion, args, isAsync);
+    /**
+     * Compiles a completion, reusing the compiled one for as long as no replacements were added.
+     */
+    CompletionSpec compile(String completion) {
+        CompletionSpec spec = this.compiledSpecs.get(completion);
+        CommandReplacements replacements = manager.getCommandReplacements();
+        if (spec == null || spec.replacementsVersion != replacements.getVersion()) {
+            spec = CompletionSpec.compile(completion, replacements);
+            this.compiledSpecs.put(completion, spec);
+        }
+        return spec;
     }
 
     String findDefaultCompletion(RegisteredCommand cmd, String[] args) {
+        CommandParameter param = findCompletedParameter(cmd, args);
+        if (param == null) {
+            return null;
+        }
+        Class type = param.getType();
+        while (type != null) {
+            String completion = this.defaultCompletions.get(type);
+            if (completion != null) {
+                return completion;
+            }
+            type = type.getSuperclass();
+        }
+        return param.getType().isEnum() ? DEFAULT_ENUM_ID : null;
+    }
+
+    /**
+     * @return The parameter the argument being completed is resolved into, or null if there is none.
+     */
+    private static CommandParameter findCompletedParameter(RegisteredCommand cmd, String[] args) {
         int i = 0;
         for (CommandParameter param : cmd.parameters) {
             if (param.canConsumeInput() && ++i == args.length) {
-                Class type = param.getType();
-                while (type != null) {
-                    String completion = this.defaultCompletions.get(type);
-                    if (completion != null) {
-                        return completion;
-                    }
-                    type = type.getSuperclass();
-                }
-                if (param.getType().isEnum()) {
-                    CommandOperationContext ctx = CommandManager.getCurrentCommandOperationContext();
-                    //noinspection unchecked
-                    ctx.enumCompletionValues = ACFUtil.enumNames((Class<? extends Enum<?>>) param.getType());
-                    return DEFAULT_ENUM_ID;
-                }
-                break;
+                return param;
             }
         }
         return null;
     }
 
     List<String> getCompletionValues(RegisteredCommand command, CommandIssuer sender, String completion, String[] args, boolean isAsync) {
-        if (DEFAULT_ENUM_ID.equals(completion)) {
-            CommandOperationContext<?> ctx = CommandManager.getCurrentCommandOperationContext();
-            return ctx.enumCompletionValues;
+        CompletionSink sink = new CompletionSink("");
+        if (!getCompletionValues(command, sender, compile(completion), args, isAsync, sink)) {
+            return Collections.singletonList(args.length > 0 ? args[args.length - 1] : "");
         }
-        boolean repeat = completion.startsWith("repeat@");
-        if (repeat) {
-            completion = completion.substring(6);
+        return sink.completeNow(sink.toFuture());
+    }
+
+    /**
+     * Pushes the values of a completion into the sink, stopping once it is full.
+     *
+     * @return false if a lookup failed, in which case the input was offered to the sink as the completion instead
+     */
+    boolean getCompletionValues(RegisteredCommand command, CommandIssuer sender, CompletionSpec spec, String[] args, boolean isAsync, CompletionSink sink) {
+        if (DEFAULT_ENUM_ID.equals(spec.source)) {
+            CommandParameter param = findCompletedParameter(command, args);
+            if (param != null) {
+                EnumLookup.of(param.getType()).complete(sink);
+            }
+            return true;
         }
-        completion = manager.getCommandReplacements().replace(completion);
 
-        List<String> allCompletions = new ArrayList<>();
         String input = args.length > 0 ? args[args.length - 1] : "";
-
-        for (String value : ACFPatterns.PIPE.split(completion)) {
-            String[] complete = ACFPatterns.COLONEQUALS.split(value, 2);
-            CommandCompletionHandler handler = this.completionMap.get(complete[0].toLowerCase());
+        // Completions with more than one word are matched against all of the arguments, and trimmed to the last one.
+        boolean multiWord = !spec.repeat && command.parameters.length > 0
+                && command.parameters[command.parameters.length - 1].consumesRest
+                && args.length > command.getCompletionSpecs(this).length;
+        Map<String, CommandCompletionHandler> handlers = this.completionMap;
+
+        for (CompletionSpec.Token token : spec.tokens) {
+            if (sink.isFull() || sink.isExpired()) {
+                return true;
+            }
+            CommandCompletionHandler handler = token.getHandler(handlers);
             if (handler != null) {
-                if (isAsync && !(handler instanceof AsyncCommandCompletionHandler)) {
-                    ACFUtil.sneaky(new SyncCompletionRequired());
-                    return null;
+                String config = token.config;
+                // Static completions are already indexed by the input, which caches don't key by.
+                CompletionCache cache = handler instanceof StaticCompletionHandler ? null : this.caches.get(token.id);
+                boolean asyncSafe = handler instanceof AsyncCommandCompletionHandler;
+                Collection<String> cached = null;
+                if (isAsync && !asyncSafe) {
+                    // Requests are only completed async if every handler is async-safe or cached, see requiresSync.
+                    cached = cache != null ? cache.getIfPresent(config, sender) : null;
+                    if (cached == null) {
+                        sink.add(input);
+                        return false;
+                    }
                 }
-                String config = complete.length == 1 ? null : complete[1];
                 CommandCompletionContext context = manager.createCompletionContext(command, sender, input, config, args);
+                context.setParsedConfig(token.parsedConfig);
 
                 try {
-                    //noinspection unchecked
-                    Collection<String> completions = handler.getCompletions(context);
-
-                    //Handle completions with more than one word:
-                    if (!repeat && completions != null
-                            && command.parameters[command.parameters.length - 1].consumesRest
-                            && args.length > ACFPatterns.SPACE.split(command.complete).length) {
-                        String start = String.join(" ", args);
-                        completions = completions.stream()
-                                .map(s -> {
-                                    if (s != null && s.split(" ").length >= args.length && ApacheCommonsLangUtil.startsWithIgnoreCase(s, start)) {
-                                        String[] completionArgs = s.split(" ");
-                                        return String.join(" ", Arrays.copyOfRange(completionArgs, args.length - 1, completionArgs.length));
-                                    } else {
-                                        return s;
-                                    }
-                                }).collect(Collectors.toList());
-                    }
-
-                    if (completions != null) {
-                        allCompletions.addAll(completions);
+                    if (cached == null && handler instanceof FutureCompletionHandler) {
+                        //noinspection unchecked
+                        CompletableFuture<Collection<String>> future = cache != null
+                                ? cache.getAsync(config, (FutureCompletionHandler) handler, context)
+                                : ((FutureCompletionHandler) handler).getCompletionsAsync(context);
+                        sink.defer(token.id, future, deferValues(command, sender, future, args, input, multiWord));
                         continue;
                     }
+                    // Handlers running on this thread can't be cut off, so report the one the deadline expired in.
+                    CompletionDeadline deadline = sink.getDeadline();
+                    long startedAt = deadline != null ? System.nanoTime() : 0;
+                    try {
+                        if (completeNow(handler, context, cached, cache, config, asyncSafe, multiWord, args, sink)) {
+                            continue;
+                        }
+                    } finally {
+                        if (deadline != null && deadline.isExpired()) {
+                            deadline.reportSlow(token.id, System.nanoTime() - startedAt);
+                        }
+                    }
                     //noinspection ConstantIfStatement,ConstantConditions
                     if (false) { // Hack to fool compiler. since its sneakily thrown.
                         throw new CommandCompletionTextLookupException();
@@ -299,13 +537,108 @@ public class CommandCompletions<C extends CommandCompletionContext> {
                     command.handleException(sender, Arrays.asList(args), e);
                 }
                 // Something went wrong in lookup, fall back to input
-                return Collections.singletonList(input);
+                sink.add(input);
+                return false;
             } else {
                 // Plaintext value
-                allCompletions.add(value);
+                sink.add(token.value);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs a handler on this thread, pushing its values into the sink.
+     *
+     * @return false if the lookup failed
+     */
+    private boolean completeNow(CommandCompletionHandler handler, CommandCompletionContext context, Collection<String> cached, CompletionCache cache,
+                                String config, boolean asyncSafe, boolean multiWord, String[] args, CompletionSink sink) throws InvalidCommandArgument {
+        if (cached == null && cache == null && handler instanceof CompletionSinkHandler) {
+            if (!multiWord) {
+                //noinspection unchecked
+                ((CompletionSinkHandler) handler).complete(context, sink);
+                return true;
+            }
+            if (handler instanceof StaticCompletionHandler) {
+                ((StaticCompletionHandler) handler).completeWords(args, sink);
+                return true;
+            }
+        }
+
+        Collection<String> completions;
+        if (cached != null) {
+            completions = cached;
+        } else if (cache != null) {
+            completions = cache.get(config, handler, context, asyncSafe ? manager.getDefaultAsyncExecutor() : null);
+        } else {
+            //noinspection unchecked
+            completions = handler.getCompletions(context);
+        }
+
+        if (completions == null) {
+            return false;
+        }
+        if (!multiWord) {
+            sink.addAll(completions);
+            return true;
+        }
+        String start = String.join(" ", args);
+        for (String s : completions) {
+            if (!sink.add(trimWords(s, s != null ? s.split(" ") : null, start, args.length))) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Maps the values of a future completion like the values of any other completion, falling back to the input if
+     * the lookup failed.
+     */
+    private static CompletableFuture<List<String>> deferValues(RegisteredCommand command, CommandIssuer sender, CompletableFuture<Collection<String>> future,
+                                                               String[] args, String input, boolean multiWord) {
+        if (future == null) {
+            return CompletableFuture.completedFuture(Collections.singletonList(input));
+        }
+        return future.handle((completions, t) -> {
+            if (t != null) {
+                Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                if (!(cause instanceof CommandCompletionTextLookupException) && !(cause instanceof CancellationException)) {
+                    command.handleException(sender, Arrays.asList(args), cause);
+                }
+                return Collections.singletonList(input);
             }
+            if (completions == null) {
+                return Collections.singletonList(input);
+            }
+            List<String> values = new ArrayList<>(completions.size());
+            if (!multiWord) {
+                values.addAll(completions);
+                return values;
+            }
+            String start = String.join(" ", args);
+            for (String s : completions) {
+                values.add(trimWords(s, s != null ? s.split(" ") : null, start, args.length));
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Trims a completion spanning multiple words to the words from the argument being completed onwards, if it
+     * starts with all of the arguments.
+     *
+     * @param completion The completion.
+     * @param words      The words of the completion.
+     * @param start      All of the arguments joined by spaces.
+     * @param argCount   The number of arguments.
+     */
+    static String trimWords(String completion, String[] words, String start, int argCount) {
+        if (completion != null && words.length >= argCount && ApacheCommonsLangUtil.startsWithIgnoreCase(completion, start)) {
+            return String.join(" ", Arrays.copyOfRange(words, argCount - 1, words.length));
         }
-        return allCompletions;
+        return completion;
     }
 
     public interface CommandCompletionHandler<C extends CommandCompletionContext> {
@@ -315,6 +648,65 @@ public class CommandCompletions<C extends CommandCompletionContext> {
     public interface AsyncCommandCompletionHandler<C extends CommandCompletionContext> extends CommandCompletionHandler<C> {
     }
 
+    /**
+     * A completion handler pushing its values into the {@link CompletionSink} of the request, instead of returning them
+     * all. Stop once {@link CompletionSink#add(String)} returns false, and use {@link CompletionSink#matches(String)}
+     * to skip expensive work for values that would be filtered out.
+     */
+    public interface CompletionSinkHandler<C extends CommandCompletionContext> extends CommandCompletionHandler<C> {
+        void complete(C context, CompletionSink sink) throws InvalidCommandArgument;
+
+        @Override
+        default Collection<String> getCompletions(C context) throws InvalidCommandArgument {
+            CompletionSink sink = new CompletionSink("");
+            complete(context, sink);
+            return sink.getValues();
+        }
+    }
+
+    /**
+     * A completion handler returning a future of its values, which is composed into the completions of the request
+     * without blocking on it.
+     */
+    public interface FutureCompletionHandler<C extends CommandCompletionContext> extends AsyncCommandCompletionHandler<C> {
+        CompletableFuture<Collection<String>> getCompletionsAsync(C context) throws InvalidCommandArgument;
+
+        /**
+         * Gets the values of the lookup if it is done right away, as the caller can't wait for it. Otherwise the lookup
+         * is cancelled and nothing is completed.
+         */
+        @Override
+        default Collection<String> getCompletions(C context) throws InvalidCommandArgument {
+            CompletableFuture<Collection<String>> future = getCompletionsAsync(context);
+            if (future == null) {
+                return null;
+            }
+            if (!future.isDone()) {
+                future.cancel(true);
+                return Collections.emptyList();
+            }
+            try {
+                return future.join();
+            } catch (CancellationException e) {
+                return Collections.emptyList();
+            } catch (CompletionException e) {
+                ACFUtil.sneaky(e.getCause() != null ? e.getCause() : e);
+                return null;
+            }
+        }
+    }
+
+    public interface AsyncCompletionSinkHandler<C extends CommandCompletionContext> extends CompletionSinkHandler<C>, AsyncCommandCompletionHandler<C> {
+    }
+
+    /**
+     * Thrown by {@link BaseCommand#tabComplete(CommandIssuer, String, String[], boolean)} when run off of the main
+     * thread while some of the completions aren't async-safe.
+     *
+     * @deprecated Only thrown by the list based API, requests completed through a {@link CompletionSink} report
+     * needing the main thread by {@link CompletionSink#isSyncRequired()} before anything is completed.
+     */
+    @Deprecated
     public static class SyncCompletionRequired extends RuntimeException {
     }
 
@@ -23,9 +23,9 @@
 
 package co.aikar.commands;
 
-import co.aikar.util.Table;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,20 +36,29 @@ public class CommandConditions<
         CC extends ConditionContext<I>
         > {
     private CommandManager manager;
-    private Map<String, Condition<I>> conditions = new HashMap<>();
-    private Table<Class<?>, String, ParameterCondition<?, ?, ?>> paramConditions = new Table<>();
+    // Immutable snapshots, replaced as a whole on registration so validation never locks.
+    private volatile Map<String, Condition<I>> conditions = Collections.emptyMap();
+    private volatile Map<Class<?>, Map<String, ParameterCondition<?, ?, ?>>> paramConditions = Collections.emptyMap();
 
     CommandConditions(CommandManager manager) {
         this.manager = manager;
     }
 
-    public Condition<I> addCondition(@NotNull String id, @NotNull Condition<I> handler) {
-        return this.conditions.put(id.toLowerCase(), handler);
+    public synchronized Condition<I> addCondition(@NotNull String id, @NotNull Condition<I> handler) {
+        Map<String, Condition<I>> conditions = new HashMap<>(this.conditions);
+        Condition<I> previous = conditions.put(id.toLowerCase(), handler);
+        this.conditions = Collections.unmodifiableMap(conditions);
+        return previous;
     }
 
-    public <P> ParameterCondition addCondition(Class<P> clazz, @NotNull String id,
-                                               @NotNull ParameterCondition<P, CEC, I> handler) {
-        return this.paramConditions.put(clazz, id.toLowerCase(), handler);
+    public synchronized <P> ParameterCondition addCondition(Class<P> clazz, @NotNull String id,
+                                                            @NotNull ParameterCondition<P, CEC, I> handler) {
+        Map<Class<?>, Map<String, ParameterCondition<?, ?, ?>>> paramConditions = new HashMap<>(this.paramConditions);
+        Map<String, ParameterCondition<?, ?, ?>> classConditions = new HashMap<>(paramConditions.getOrDefault(clazz, Collections.emptyMap()));
+        ParameterCondition previous = classConditions.put(id.toLowerCase(), handler);
+        paramConditions.put(clazz, Collections.unmodifiableMap(classConditions));
+        this.paramConditions = Collections.unmodifiableMap(paramConditions);
+        return previous;
     }
 
     void validateConditions(CommandOperationContext context) throws InvalidCommandArgument {
@@ -104,7 +113,7 @@ public class CommandConditions<
             Class<?> cls = execContext.getParam().getType();
             String id = split[0].toLowerCase();
             do {
-                condition = this.paramConditions.get(cls, id);
+                condition = this.paramConditions.getOrDefault(cls, Collections.emptyMap()).get(id);
                 if (condition == null && cls.getSuperclass() != null && cls.getSuperclass() != Object.class) {
                     cls = cls.getSuperclass();
                 } else {
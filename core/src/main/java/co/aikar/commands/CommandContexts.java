@@ -35,13 +35,17 @@ import org.jetbrains.annotations.NotNull;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @SuppressWarnings("WeakerAccess")
 public class CommandContexts<R extends CommandExecutionContext<? extends CommandIssuer>> {
-    protected final Map<Class<?>, ContextResolver<?, R>> contextMap = new HashMap<>();
+    /**
+     * Immutable snapshot of the registered resolvers, replaced as a whole on registration so lookups never lock.
+     */
+    protected volatile Map<Class<?>, ContextResolver<?, R>> contextMap = Collections.emptyMap();
     protected final CommandManager manager;
 
     CommandContexts(CommandManager manager) {
@@ -216,10 +220,10 @@ public class CommandContexts<R extends CommandExecutionContext<? extends Command
             final String first = c.popFirstArg();
             //noinspection unchecked
             Class<? extends Enum<?>> enumCls = (Class<? extends Enum<?>>) c.getParam().getType();
-            Enum<?> match = ACFUtil.simpleMatch(enumCls, first);
+            EnumLookup lookup = EnumLookup.of(enumCls);
+            Enum<?> match = lookup.simpleMatch(first);
             if (match == null) {
-                List<String> names = ACFUtil.enumNames(enumCls);
-                String msg = MessageConfig.IMP.ERROR.PLEASE_SPECIFY_ONE_OF.replace("<valid>", ACFUtil.join(names, ", "));
+                String msg = MessageConfig.IMP.ERROR.PLEASE_SPECIFY_ONE_OF.replace("<valid>", ACFUtil.join(lookup.names, ", "));
                 throw new InvalidCommandArgument(msg);
             }
             return match;
@@ -299,7 +303,7 @@ public class CommandContexts<R extends CommandExecutionContext<? extends Command
      * if you want to consume that input.
      */
     public <T> void registerIssuerAwareContext(Class<T> context, IssuerAwareContextResolver<T, R> supplier) {
-        contextMap.put(context, supplier);
+        putResolver(context, supplier);
     }
 
     /**
@@ -307,7 +311,7 @@ public class CommandContexts<R extends CommandExecutionContext<? extends Command
      * issuer of the command, so it will not appear in syntax strings.
      */
     public <T> void registerIssuerOnlyContext(Class<T> context, IssuerOnlyContextResolver<T, R> supplier) {
-        contextMap.put(context, supplier);
+        putResolver(context, supplier);
     }
 
     /**
@@ -315,7 +319,7 @@ public class CommandContexts<R extends CommandExecutionContext<? extends Command
      * call {@link CommandExecutionContext#popFirstArg()}
      */
     public <T> void registerOptionalContext(Class<T> context, OptionalContextResolver<T, R> supplier) {
-        contextMap.put(context, supplier);
+        putResolver(context, supplier);
     }
 
     /**
@@ -323,7 +327,13 @@ public class CommandContexts<R extends CommandExecutionContext<? extends Command
      * call {@link CommandExecutionContext#popFirstArg()}
      */
     public <T> void registerContext(Class<T> context, ContextResolver<T, R> supplier) {
+        putResolver(context, supplier);
+    }
+
+    private synchronized void putResolver(Class<?> context, ContextResolver<?, R> supplier) {
+        Map<Class<?>, ContextResolver<?, R>> contextMap = new HashMap<>(this.contextMap);
         contextMap.put(context, supplier);
+        this.contextMap = Collections.unmodifiableMap(contextMap);
     }
 
     public ContextResolver<?, R> getResolver(Class<?> type) {
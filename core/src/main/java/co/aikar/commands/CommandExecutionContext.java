@@ -34,12 +34,12 @@ import java.util.Set;
 @SuppressWarnings({"WeakerAccess", "unchecked"})
 public class CommandExecutionContext<I extends CommandIssuer> {
     @Getter private final RegisteredCommand cmd;
-    private final CommandParameter param;
+    private CommandParameter param;
     @Getter protected final I issuer;
     @Getter private final List<String> args;
-    @Getter private final int index;
+    @Getter private int index;
     @Getter private final Map<String, Object> passedArgs;
-    @Getter private final Map<String, String> flags;
+    @Getter private Map<String, String> flags;
     private final CommandManager manager;
 
     CommandExecutionContext(RegisteredCommand cmd, CommandParameter param, I sender, List<String> args,
@@ -55,6 +55,15 @@ public class CommandExecutionContext<I extends CommandIssuer> {
 
     }
 
+    /**
+     * Moves this context on to the next parameter being resolved, so one context serves a whole invocation.
+     */
+    void setParameter(CommandParameter param, int index) {
+        this.param = param;
+        this.index = index;
+        this.flags = param.getFlags();
+    }
+
     public String popFirstArg() {
         return !args.isEmpty() ? args.remove(0) : null;
     }
@@ -88,6 +97,9 @@ public class CommandExecutionContext<I extends CommandIssuer> {
     }
 
     public Object getResolvedArg(Class<?>... classes) {
+        if (passedArgs instanceof ResolvedArgs) {
+            return ((ResolvedArgs) passedArgs).findInstance(classes);
+        }
         for (Class<?> clazz : classes) {
             for (Object passedArg : passedArgs.values()) {
                 if (clazz.isInstance(passedArg)) {
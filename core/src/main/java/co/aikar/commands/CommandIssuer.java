@@ -65,6 +65,21 @@ public interface CommandIssuer {
      */
     boolean hasPermission(String permission);
 
+    /**
+     * Checks several permission nodes at once. The manager asks for every node a check needs that it doesn't know the
+     * result of yet, so permission providers able to resolve nodes in bulk can override this.
+     *
+     * @param permissions the permission nodes to check
+     * @return whether the issuer has each of the nodes, in the same order
+     */
+    default boolean[] hasPermissions(String[] permissions) {
+        boolean[] results = new boolean[permissions.length];
+        for (int i = 0; i < permissions.length; i++) {
+            results[i] = hasPermission(permissions[i]);
+        }
+        return results;
+    }
+
     default void sendInfo(String message) {
         sendMessage(MessageConfig.IMP.FORMATS.INFO_MESSAGE.replace("<message>", message));
     }
@@ -33,12 +33,17 @@ import org.jetbrains.annotations.NotNull;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 
 @SuppressWarnings("WeakerAccess")
@@ -50,24 +55,23 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
         this.defaultExceptionHandler = copyFrom.defaultExceptionHandler;
         this.helpFormatter = copyFrom.helpFormatter;
         this.defaultHelpPerPage = copyFrom.defaultHelpPerPage;
+        this.completionLimit = copyFrom.completionLimit;
+        this.completionNarrowing = copyFrom.completionNarrowing;
+        this.completionDeadlineNanos = copyFrom.completionDeadlineNanos;
+        this.permissionSnapshotNanos = copyFrom.permissionSnapshotNanos;
         this.logUnhandledExceptions = copyFrom.logUnhandledExceptions;
         this.annotations = copyFrom.annotations;
         this.dependencies = copyFrom.dependencies;
+        this.asyncExecutors = copyFrom.asyncExecutors;
+        this.defaultAsyncExecutor = copyFrom.defaultAsyncExecutor;
     }
 
-    /**
-     * This is a stack incase a command calls a command
-     */
-    static ThreadLocal<Stack<CommandOperationContext>> commandOperationContext = ThreadLocal.withInitial(() -> new Stack<CommandOperationContext>() {
-        @Override
-        public synchronized CommandOperationContext peek() {
-            return super.isEmpty() ? null : super.peek();
-        }
-    });
-
     protected CommandReplacements replacements = new CommandReplacements(this);
     protected CommandConditions<I, CEC, CC> conditions = new CommandConditions<>(this);
-    protected Map<String, RootCommand> rootCommands = new HashMap<>();
+    /**
+     * Immutable snapshot of the root commands, replaced as a whole when a new root is created so lookups never lock.
+     */
+    protected volatile Map<String, RootCommand> rootCommands = Collections.emptyMap();
     /**
      * -- GETTER --
      *  Gets the current default exception handler, might be null.
@@ -78,23 +82,79 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
     protected Table<Class<?>, String, Object> dependencies = new Table<>();
     @Setter @Getter protected CommandHelpFormatter helpFormatter = new CommandHelpFormatter();
     @Setter @Getter protected int defaultHelpPerPage = 10;
+    /**
+     * -- GETTER --
+     *  Gets how many tab completions are collected for a single request, after which the remaining ones are skipped.
+     *
+     * @return the completion limit
+     */
+    @Setter @Getter protected int completionLimit = CompletionSink.UNLIMITED;
+    /**
+     * -- GETTER --
+     *  Gets whether typing further into an argument narrows down the last completions of the issuer, instead of
+     *  looking them up again. Only enable this if every completion handler returns the values starting with the input,
+     *  rather than values based on the whole input or a page of them.
+     *
+     * @return whether completions are narrowed
+     */
+    @Setter @Getter protected boolean completionNarrowing = false;
+    final CompletionMemo completionMemo = new CompletionMemo();
+    /**
+     * How long a single completion request may take before the completions gathered so far are returned, or 0 to wait
+     * for all of them.
+     */
+    protected volatile long completionDeadlineNanos = 0;
+    @Getter private final CompletionTimings completionTimings = new CompletionTimings();
+    final PermissionIndex permissionIndex = new PermissionIndex();
+    final PermissionSnapshots permissionSnapshots = new PermissionSnapshots();
+    /**
+     * How long the permission nodes an issuer was granted are remembered, or 0 to ask the issuer on every check.
+     * Disabled by default, see {@link #setPermissionSnapshotTtl(long, TimeUnit)}.
+     */
+    protected volatile long permissionSnapshotNanos = 0;
+    /**
+     * Whether a subclass overrides {@link #hasPermission(CommandIssuer, String)} or
+     * {@link #hasPermission(CommandIssuer, Set)}, in which case every check goes through those overrides instead of
+     * reading the permission snapshot directly.
+     */
+    final boolean permissionChecksOverridden = overridesPermissionChecks(getClass());
+    /**
+     * The executors {@link co.aikar.commands.annotation.Async} commands can name to run on, keyed by lowercase name.
+     */
+    protected Map<String, Executor> asyncExecutors = new ConcurrentHashMap<>();
+    /**
+     * -- GETTER --
+     *  Gets the executor {@link co.aikar.commands.annotation.Async} commands run on unless they name another one.
+     *
+     * @return the default async executor
+     */
+    @Getter protected Executor defaultAsyncExecutor = ForkJoinPool.commonPool();
 
     boolean logUnhandledExceptions = true;
 
     @Getter private Annotations<CommandManager<IT, I, CEC, CC>> annotations = new Annotations<>(this);
     private final CommandRouter router = new CommandRouter();
 
+    /**
+     * Gets the innermost command operation running on this thread.
+     * <p>
+     * The context is a snapshot of the operation, so it can be kept past the end of the operation, such as by a task
+     * scheduled for later.
+     *
+     * @return a copy of the context of the operation, or null if none is running
+     */
     public static CommandOperationContext getCurrentCommandOperationContext() {
-        return commandOperationContext.get().peek();
+        CommandOperationContext context = CommandOperationStack.get().peek();
+        return context != null ? context.copy() : null;
     }
 
     public static CommandIssuer getCurrentCommandIssuer() {
-        CommandOperationContext context = commandOperationContext.get().peek();
+        CommandOperationContext context = CommandOperationStack.get().peek();
         return context != null ? context.getCommandIssuer() : null;
     }
 
     public static CommandManager getCurrentCommandManager() {
-        CommandOperationContext context = commandOperationContext.get().peek();
+        CommandOperationContext context = CommandOperationStack.get().peek();
         return context != null ? context.getCommandManager() : null;
     }
 
@@ -116,8 +176,100 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
      */
     public abstract CommandCompletions<?> getCommandCompletions();
 
+    /**
+     * Forgets the last completions of an issuer, so the next completion is looked up again rather than narrowed down.
+     * Call {@link #invalidatePermissions(CommandIssuer)} instead when the permissions of the issuer change.
+     *
+     * @param issuer the issuer whose completions changed
+     */
+    public void invalidateCompletions(@NotNull CommandIssuer issuer) {
+        this.completionMemo.invalidate(issuer);
+    }
+
+    /**
+     * Forgets the last completions of every issuer, such as after permissions were reloaded.
+     */
+    public void invalidateCompletions() {
+        this.completionMemo.invalidateAll();
+    }
+
+    /**
+     * Forgets the permission nodes an issuer was granted, along with its last completions, so the next checks ask the
+     * issuer again. Call this when the permissions of the issuer change, such as from a permission recalculation event.
+     *
+     * @param issuer the issuer whose permissions changed
+     */
+    public void invalidatePermissions(@NotNull CommandIssuer issuer) {
+        this.permissionSnapshots.invalidate(issuer);
+        this.completionMemo.invalidate(issuer);
+    }
+
+    /**
+     * Forgets the permission nodes every issuer was granted, along with their last completions, such as after
+     * permissions were reloaded.
+     */
+    public void invalidatePermissions() {
+        this.permissionSnapshots.invalidateAll();
+        this.completionMemo.invalidateAll();
+    }
+
+    /**
+     * Sets how long the permission nodes an issuer was granted are remembered, so the checks while dispatching,
+     * completing or sending the command tree don't ask the permission provider again. Changes to the permissions of an
+     * issuer go unnoticed for this long unless {@link #invalidatePermissions(CommandIssuer)} is called.
+     * <p>
+     * Disabled by default, so every check asks the issuer.
+     *
+     * @param time how long to remember permissions, or 0 to ask the issuer on every check
+     * @param unit the unit of the time
+     */
+    public void setPermissionSnapshotTtl(long time, @NotNull TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The permission snapshot ttl can't be negative");
+        }
+        this.permissionSnapshotNanos = unit.toNanos(time);
+        this.permissionSnapshots.invalidateAll();
+    }
+
+    /**
+     * @param unit the unit to return the ttl in
+     * @return how long permissions are remembered, or 0 if they aren't
+     */
+    public long getPermissionSnapshotTtl(@NotNull TimeUnit unit) {
+        return unit.convert(this.permissionSnapshotNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Bounds how long a single completion request may take. Once it expires, the completions gathered so far are
+     * returned, the lookups still running are cancelled, and the completions that missed it are recorded in
+     * {@link #getCompletionTimings()}.
+     * <p>
+     * Handlers running on the thread requesting completions can't be interrupted, so the deadline is checked between
+     * them. Cached lookups keep running past it, so their results are there for the next request.
+     * <p>
+     * Requests that have to be answered right away, such as the tab completions of a sync event, never wait for
+     * lookups still running, whatever the deadline.
+     *
+     * @param time the deadline, or 0 to wait for all completions
+     * @param unit the unit of the time
+     */
+    public void setCompletionDeadline(long time, @NotNull TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("The completion deadline can't be negative");
+        }
+        this.completionDeadlineNanos = unit.toNanos(time);
+    }
+
+    /**
+     * @param unit the unit to return the deadline in
+     * @return the completion deadline, or 0 if there is none
+     */
+    public long getCompletionDeadline(@NotNull TimeUnit unit) {
+        return unit.convert(this.completionDeadlineNanos, TimeUnit.NANOSECONDS);
+    }
+
     public CommandHelp generateCommandHelp(@NotNull String command) {
-        CommandOperationContext context = getCurrentCommandOperationContext();
+        CommandOperationContext context = CommandOperationStack.get().peek();
         if (context == null) {
             throw new IllegalStateException("This method can only be called as part of a command execution.");
         }
@@ -129,7 +281,7 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
     }
 
     public CommandHelp generateCommandHelp() {
-        CommandOperationContext context = getCurrentCommandOperationContext();
+        CommandOperationContext context = CommandOperationStack.get().peek();
         if (context == null) {
             throw new IllegalStateException("This method can only be called as part of a command execution.");
         }
@@ -191,6 +343,13 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
     }
 
     public boolean hasPermission(CommandIssuer issuer, Set<String> permissions) {
+        if (permissions.isEmpty()) {
+            return true;
+        }
+        int[] ids = this.permissionChecksOverridden ? null : this.permissionIndex.parseAll(permissions);
+        if (ids != null) {
+            return hasPermissions(issuer, ids);
+        }
         for (String permission : permissions) {
             if (!hasPermission(issuer, permission)) {
                 return false;
@@ -203,6 +362,10 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
         if (permission == null || permission.isEmpty()) {
             return true;
         }
+        int[] ids = this.permissionIndex.parse(permission);
+        if (ids != null) {
+            return hasPermissions(issuer, ids);
+        }
         for (String perm : ACFPatterns.COMMA.split(permission)) {
             if (!perm.isEmpty() && !issuer.hasPermission(perm)) {
                 return false;
@@ -211,12 +374,83 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
         return true;
     }
 
-    public synchronized RootCommand getRootCommand(@NotNull String cmd) {
+    private static boolean overridesPermissionChecks(Class<?> managerClass) {
+        try {
+            return managerClass.getMethod("hasPermission", CommandIssuer.class, String.class).getDeclaringClass() != CommandManager.class
+                    || managerClass.getMethod("hasPermission", CommandIssuer.class, Set.class).getDeclaringClass() != CommandManager.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Reads the permission snapshot directly, so callers must check {@link #permissionChecksOverridden} first.
+     *
+     * @return Whether the issuer was granted every interned node, from its permission snapshot if it has one.
+     */
+    boolean hasPermissions(CommandIssuer issuer, int[] ids) {
+        if (ids.length == 0) {
+            return true;
+        }
+        long ttl = this.permissionSnapshotNanos;
+        if (ttl == 0) {
+            for (int id : ids) {
+                if (!issuer.hasPermission(this.permissionIndex.getNode(id))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return this.permissionSnapshots.get(issuer, ttl).hasAll(issuer, this.permissionIndex, ids);
+    }
+
+    /**
+     * Checks each permission on its own, resolving all those the issuer's snapshot is missing at once.
+     *
+     * @return The positions of the permissions the issuer has.
+     */
+    BitSet getGrantedPermissions(CommandIssuer issuer, String[] permissions) {
+        int[] ids = new int[permissions.length];
+        for (int i = 0; i < permissions.length; i++) {
+            int[] parsed = this.permissionChecksOverridden ? null : this.permissionIndex.parse(permissions[i]);
+            if (parsed == null || parsed.length != 1) {
+                BitSet granted = new BitSet(permissions.length);
+                for (int j = 0; j < permissions.length; j++) {
+                    if (hasPermission(issuer, permissions[j])) {
+                        granted.set(j);
+                    }
+                }
+                return granted;
+            }
+            ids[i] = parsed[0];
+        }
+        long ttl = this.permissionSnapshotNanos;
+        if (ttl == 0) {
+            BitSet granted = new BitSet(permissions.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (issuer.hasPermission(this.permissionIndex.getNode(ids[i]))) {
+                    granted.set(i);
+                }
+            }
+            return granted;
+        }
+        return this.permissionSnapshots.get(issuer, ttl).getGranted(issuer, this.permissionIndex, ids);
+    }
+
+    public RootCommand getRootCommand(@NotNull String cmd) {
         return rootCommands.get(ACFPatterns.SPACE.split(cmd.toLowerCase(), 2)[0]);
     }
 
     public synchronized RootCommand obtainRootCommand(@NotNull String cmd) {
-        return rootCommands.computeIfAbsent(ACFPatterns.SPACE.split(cmd.toLowerCase(), 2)[0], this::createRootCommand);
+        String rootName = ACFPatterns.SPACE.split(cmd.toLowerCase(), 2)[0];
+        RootCommand rootCommand = rootCommands.get(rootName);
+        if (rootCommand == null) {
+            rootCommand = createRootCommand(rootName);
+            Map<String, RootCommand> rootCommands = new HashMap<>(this.rootCommands);
+            rootCommands.put(rootName, rootCommand);
+            this.rootCommands = Collections.unmodifiableMap(rootCommands);
+        }
+        return rootCommand;
     }
 
     public abstract Collection<RootCommand> getRegisteredRootCommands();
@@ -270,6 +504,87 @@ public abstract class CommandManager<IT, I extends CommandIssuer, CEC extends Co
         return result;
     }
 
+    /**
+     * Sets the executor {@link co.aikar.commands.annotation.Async} commands run on unless they name another one.
+     * Defaults to the common {@link ForkJoinPool}.
+     *
+     * @param executor the executor to use
+     */
+    public void setDefaultAsyncExecutor(@NotNull Executor executor) {
+        this.defaultAsyncExecutor = executor;
+    }
+
+    /**
+     * Makes {@link co.aikar.commands.annotation.Async} commands run on virtual threads unless they name another executor,
+     * if the runtime supports them. This suits commands that mostly block on I/O.
+     * <p>
+     * Bulkheads registered afterwards with {@link #registerBulkhead(String, int, int)} also run on virtual threads.
+     *
+     * @return whether virtual threads are supported, requiring Java 21 or newer. If not, the default async executor is
+     * left unchanged.
+     */
+    public boolean useVirtualThreadsForAsync() {
+        Executor executor = VirtualThreads.getExecutor();
+        if (executor == null) {
+            return false;
+        }
+        this.defaultAsyncExecutor = executor;
+        return true;
+    }
+
+    /**
+     * Registers an executor that {@link co.aikar.commands.annotation.Async} commands can run on by naming it, as in
+     * {@code @Async("database")}.
+     *
+     * @param name     the name of the executor
+     * @param executor the executor
+     */
+    public void registerAsyncExecutor(@NotNull String name, @NotNull Executor executor) {
+        this.asyncExecutors.put(name.toLowerCase(), executor);
+    }
+
+    /**
+     * Registers a {@link CommandBulkhead} on the default async executor, rejecting commands with a busy message when full.
+     *
+     * @param name          the name of the bulkhead, to be used in {@link co.aikar.commands.annotation.Async}
+     * @param maxConcurrent the maximum number of commands running at once
+     * @param maxQueued     the maximum number of commands waiting to run
+     * @return the registered bulkhead, to read its counters
+     * @see #registerBulkhead(String, Executor, int, int, CommandBulkhead.RejectionPolicy)
+     */
+    public CommandBulkhead registerBulkhead(@NotNull String name, int maxConcurrent, int maxQueued) {
+        return registerBulkhead(name, this.defaultAsyncExecutor, maxConcurrent, maxQueued, CommandBulkhead.RejectionPolicy.ABORT);
+    }
+
+    /**
+     * Registers a {@link CommandBulkhead} that {@link co.aikar.commands.annotation.Async} commands can run on by naming
+     * it. Commands or command classes sharing a bulkhead are limited together, isolating them from other async commands.
+     *
+     * @param name            the name of the bulkhead, to be used in {@link co.aikar.commands.annotation.Async}
+     * @param executor        the executor the commands run on
+     * @param maxConcurrent   the maximum number of commands running at once
+     * @param maxQueued       the maximum number of commands waiting to run
+     * @param rejectionPolicy what to do with commands issued while the bulkhead is full
+     * @return the registered bulkhead, to read its counters
+     */
+    public CommandBulkhead registerBulkhead(@NotNull String name, @NotNull Executor executor, int maxConcurrent, int maxQueued,
+                                            @NotNull CommandBulkhead.RejectionPolicy rejectionPolicy) {
+        CommandBulkhead bulkhead = new CommandBulkhead(name, executor, maxConcurrent, maxQueued, rejectionPolicy);
+        registerAsyncExecutor(name, bulkhead);
+        return bulkhead;
+    }
+
+    /**
+     * Gets the executor registered under the name, or the default async executor if the name is null or unknown.
+     *
+     * @param name the name of the executor
+     * @return the executor to run async commands on
+     */
+    public Executor getAsyncExecutor(String name) {
+        Executor executor = name != null ? this.asyncExecutors.get(name.toLowerCase()) : null;
+        return executor != null ? executor : this.defaultAsyncExecutor;
+    }
+
     public void sendMessage(IT issuerArg, String s) {
         sendMessage(getCommandIssuer(issuerArg), s);
     }
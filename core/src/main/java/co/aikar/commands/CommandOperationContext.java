@@ -27,29 +27,56 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.lang.annotation.Annotation;
-import java.util.List;
 
 /**
  * Holds information about the currently executing command on this thread
+ * <p>
+ * The contexts of running operations are reused for the next operation at the same depth once they finish, so only
+ * copies of them are handed out through {@link CommandManager#getCurrentCommandOperationContext()} and
+ * {@link BaseCommand#getLastCommandOperationContext()}.
  */
 public class CommandOperationContext<I extends CommandIssuer> {
 
-    private final CommandManager manager;
-    private final I issuer;
-    @Getter private final BaseCommand command;
-    @Getter private final String commandLabel;
-    @Getter private final String[] args;
-    private final boolean isAsync;
+    private CommandManager manager;
+    private I issuer;
+    @Getter private BaseCommand command;
+    @Getter private String commandLabel;
+    @Getter private String[] args;
+    private boolean isAsync;
     @Getter @Setter private RegisteredCommand registeredCommand;
-    List<String> enumCompletionValues;
 
     CommandOperationContext(CommandManager manager, I issuer, BaseCommand command, String commandLabel, String[] args, boolean isAsync) {
+        init(manager, issuer, command, commandLabel, args, isAsync);
+    }
+
+    /**
+     * Reinitializes this context for a new operation, as contexts are reused by the {@link CommandOperationStack}.
+     */
+    void init(CommandManager manager, I issuer, BaseCommand command, String commandLabel, String[] args, boolean isAsync) {
         this.manager = manager;
         this.issuer = issuer;
         this.command = command;
         this.commandLabel = commandLabel;
         this.args = args;
         this.isAsync = isAsync;
+        this.registeredCommand = null;
+    }
+
+    /**
+     * @return A copy of this context that stays as it is once the operation finishes and this one is reused.
+     */
+    CommandOperationContext<I> copy() {
+        //noinspection unchecked
+        CommandOperationContext<I> copy = manager.createCommandOperationContext(command, issuer, commandLabel, args, isAsync);
+        copy.registeredCommand = registeredCommand;
+        return copy;
+    }
+
+    /**
+     * Drops the references of the finished operation so an idle context doesn't keep them alive.
+     */
+    void release() {
+        init(null, null, null, null, null, false);
     }
 
     public CommandManager getCommandManager() {
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.Arrays;
+
+/**
+ * The stack of command operations running on the current thread, as a command may execute another command.
+ * <p>
+ * There is one per thread, shared by every manager and command, and only ever touched by its own thread so it needs no
+ * synchronization. Contexts popped off the stack are kept and reinitialized for the next operation at that depth, so
+ * running a command or completing one does not allocate a new context.
+ */
+final class CommandOperationStack {
+    private static final ThreadLocal<CommandOperationStack> CURRENT = ThreadLocal.withInitial(CommandOperationStack::new);
+
+    private CommandOperationContext[] contexts = new CommandOperationContext[4];
+    private int size;
+
+    private CommandOperationStack() {
+    }
+
+    static CommandOperationStack get() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts a new command operation on this thread.
+     *
+     * @return The context of the operation, valid until the matching {@link #pop()}.
+     */
+    CommandOperationContext push(CommandManager manager, BaseCommand command, CommandIssuer issuer, String commandLabel, String[] args, boolean isAsync) {
+        if (size == contexts.length) {
+            contexts = Arrays.copyOf(contexts, size * 2);
+        }
+        CommandOperationContext context = contexts[size];
+        if (context == null) {
+            context = contexts[size] = manager.createCommandOperationContext(command, issuer, commandLabel, args, isAsync);
+        } else {
+            //noinspection unchecked
+            context.init(manager, issuer, command, commandLabel, args, isAsync);
+        }
+        size++;
+        return context;
+    }
+
+    /**
+     * Ends the innermost command operation on this thread.
+     */
+    void pop() {
+        if (size > 0) {
+            contexts[--size].release();
+        }
+    }
+
+    /**
+     * Captures the innermost command operation on this thread, for work handed over to another thread to run within a
+     * copy of it, such as completion handlers reading {@link CommandCompletionContext#isAsync()}.
+     *
+     * @return The captured operation, which runs tasks as is if no operation is running.
+     */
+    static CapturedOperation capture() {
+        CommandOperationContext context = get().peek();
+        return context != null ? new CapturedOperation(context) : CapturedOperation.NONE;
+    }
+
+    /**
+     * @return The context of the innermost command operation on this thread, or null if none is running.
+     */
+    CommandOperationContext peek() {
+        return size > 0 ? contexts[size - 1] : null;
+    }
+
+    /**
+     * @return The context of the innermost operation of the command running on this thread, or null if none is running.
+     */
+    CommandOperationContext peek(BaseCommand command) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (contexts[i].getCommand() == command) {
+                return contexts[i];
+            }
+        }
+        return null;
+    }
+
+    static final class CapturedOperation {
+        private static final CapturedOperation NONE = new CapturedOperation();
+
+        private final CommandManager manager;
+        private final BaseCommand command;
+        private final CommandIssuer issuer;
+        private final String commandLabel;
+        private final String[] args;
+        private final RegisteredCommand registeredCommand;
+
+        private CapturedOperation(CommandOperationContext context) {
+            this.manager = context.getCommandManager();
+            this.command = context.getCommand();
+            this.issuer = context.getCommandIssuer();
+            this.commandLabel = context.getCommandLabel();
+            this.args = context.getArgs();
+            this.registeredCommand = context.getRegisteredCommand();
+        }
+
+        private CapturedOperation() {
+            this.manager = null;
+            this.command = null;
+            this.issuer = null;
+            this.commandLabel = null;
+            this.args = null;
+            this.registeredCommand = null;
+        }
+
+        /**
+         * Runs the task on this thread within a copy of the captured operation, marked as async.
+         */
+        void run(Runnable task) {
+            if (manager == null) {
+                task.run();
+                return;
+            }
+            CommandOperationStack stack = get();
+            stack.push(manager, command, issuer, commandLabel, args, true).setRegisteredCommand(registeredCommand);
+            try {
+                task.run();
+            } finally {
+                stack.pop();
+            }
+        }
+    }
+}
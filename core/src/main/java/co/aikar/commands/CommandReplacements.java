@@ -39,6 +39,10 @@ public class CommandReplacements {
 
     private final CommandManager manager;
     private final Map<String, Map.Entry<Pattern, String>> replacements = new LinkedHashMap<>();
+    /**
+     * Bumped whenever a replacement is added, so text replaced ahead of time can tell it is outdated.
+     */
+    private volatile int version;
 
     CommandReplacements(CommandManager manager) {
         this.manager = manager;
@@ -66,6 +70,7 @@ public class CommandReplacements {
 
         Map.Entry<Pattern, String> entry = new AbstractMap.SimpleImmutableEntry<>(pattern, val);
         Map.Entry<Pattern, String> replaced = replacements.put(key, entry);
+        version++;
 
         if (replaced != null) {
             return replaced.getValue();
@@ -74,6 +79,10 @@ public class CommandReplacements {
         return null;
     }
 
+    int getVersion() {
+        return version;
+    }
+
     public String replace(String text) {
         if (text == null) {
             return null;
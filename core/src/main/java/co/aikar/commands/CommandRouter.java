@@ -24,97 +24,129 @@
 package co.aikar.commands;
 
 import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
+import co.aikar.commands.contexts.IssuerAwareContextResolver;
 import com.google.common.collect.SetMultimap;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.Optional;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static co.aikar.commands.BaseCommand.CATCHUNKNOWN;
 import static co.aikar.commands.BaseCommand.DEFAULT;
 
 class CommandRouter {
+    /**
+     * How many permission profiles the visible subcommands of a root are cached for, before starting over.
+     */
+    private static final int MAX_PROFILES = 64;
+    private final Map<RootCommand, RouteIndex> routeIndexes = new ConcurrentHashMap<>();
+
     CommandRouteResult matchCommand(RouteSearch search, boolean completion) {
-        Set<RegisteredCommand> cmds = search.commands;
-        String[] args = search.args;
-        if (!cmds.isEmpty()) {
-            if (cmds.size() == 1) {
-                return new CommandRouteResult(ACFUtil.getFirstElement(cmds), search);
-            } else {
-                Optional<RegisteredCommand> optCmd = cmds.stream()
-                        .filter(c -> isProbableMatch(c, args, completion))
-                        .min((c1, c2) -> {
-                            int a = c1.consumeInputResolvers;
-                            int b = c2.consumeInputResolvers;
+        RegisteredCommand cmd = search.dispatch.select(search.args, completion);
+        return cmd != null ? new CommandRouteResult(cmd, search) : null;
+    }
 
-                            if (a == b) {
-                                return 0;
-                            }
-                            return a < b ? 1 : -1;
-                        });
-                if (optCmd.isPresent()) {
-                    return new CommandRouteResult(optCmd.get(), search);
-                }
+    RouteSearch routeCommand(RootCommand command, String commandLabel, String[] args, boolean completion) {
+        RouteIndex index = getRouteIndex(command);
+        int argLength = args.length;
+
+        RouteNode node = index.root;
+        RouteNode matchedNode = null;
+        int matched = 0;
+        for (int i = 0; i < argLength; i++) {
+            node = node.children.get(args[i]);
+            if (node == null) {
+                break;
+            }
+            if (!node.commands.isEmpty()) {
+                matchedNode = node;
+                matched = i + 1;
             }
         }
+
+        if (matchedNode != null) {
+            String subcommand = ApacheCommonsLangUtil.join(args, " ", 0, matched).toLowerCase();
+            return new RouteSearch(matchedNode.dispatch, Arrays.copyOfRange(args, matched, argLength), commandLabel, subcommand, completion);
+        }
+
+        DispatchTable matchedDefault = index.getDefaultCommands(argLength);
+        if (!matchedDefault.commands.isEmpty()) {
+            return new RouteSearch(matchedDefault, args, commandLabel, null, completion);
+        }
+
+        if (!index.unknownCommands.commands.isEmpty()) {
+            return new RouteSearch(index.unknownCommands, args, commandLabel, null, completion);
+        }
+
         return null;
     }
 
     /**
-     * @param c
-     * @param args
-     * @param completion
-     * @return
-     * @TODO: Improve this to be more accurate like @Default handling.
+     * Gets the compiled route index for the root command, compiling it if the root has not been indexed yet.
      */
-    private boolean isProbableMatch(RegisteredCommand c, String[] args, boolean completion) {
-        int required = c.requiredResolvers;
-        int optional = c.optionalResolvers;
-        return args.length <= required + optional && (completion || args.length >= required);
+    RouteIndex getRouteIndex(RootCommand command) {
+        return routeIndexes.computeIfAbsent(command, root -> RouteIndex.compile(root.getSubCommands()));
     }
 
-    RouteSearch routeCommand(RootCommand command, String commandLabel, String[] args, boolean completion) {
-        SetMultimap<String, RegisteredCommand> subCommands = command.getSubCommands();
-        int argLength = args.length;
-        for (int i = argLength; i >= 0; i--) {
-            String subcommand = ApacheCommonsLangUtil.join(args, " ", 0, i).toLowerCase();
-            Set<RegisteredCommand> cmds = subCommands.get(subcommand);
+    /**
+     * Recompiles the route index of the root command. Must be called whenever the subcommands of the root change.
+     */
+    void reindex(RootCommand command) {
+        routeIndexes.put(command, RouteIndex.compile(command.getSubCommands()));
+    }
+
+    /**
+     * Drops the route index of a root command that was unregistered, so the router doesn't keep it alive.
+     */
+    void remove(RootCommand command) {
+        routeIndexes.remove(command);
+    }
 
-            if (!cmds.isEmpty()) {
-                return new RouteSearch(cmds, Arrays.copyOfRange(args, i, argLength), commandLabel, subcommand, completion);
+    /**
+     * Pushes the next word of the subcommands starting with the input into the sink, for those visible to the issuer.
+     * The preceding arguments are walked down the index, so only the subcommands below them are looked at, and the
+     * visible words are cached per permission profile, so completing is a prefix walk without permission checks.
+     */
+    void getCommandsForCompletion(RootCommand command, CommandIssuer issuer, String[] args, CompletionSink sink) {
+        RouteIndex index = getRouteIndex(command);
+        RouteNode node = index.root;
+        final int cmdIndex = Math.max(0, args.length - 1);
+        for (int i = 0; i < cmdIndex; i++) {
+            node = node.children.get(args[i]);
+            if (node == null) {
+                return;
             }
         }
+        if (node.children.isEmpty()) {
+            return;
+        }
 
-        Set<RegisteredCommand> defaultCommands = subCommands.get(DEFAULT);
-        Set<RegisteredCommand> unknownCommands = subCommands.get(CATCHUNKNOWN);
-        if (!defaultCommands.isEmpty()) {
-            Set<RegisteredCommand> matchedDefault = new HashSet<>();
-            for (RegisteredCommand c : defaultCommands) {
-                int required = c.requiredResolvers;
-                int optional = c.optionalResolvers;
-                CommandParameter lastParam = c.parameters.length > 0 ? c.parameters[c.parameters.length - 1] : null;
-                if (argLength <= required + optional || (
-                        lastParam != null && (
-                                lastParam.getType() == String[].class
-                                        ||
-                                        (argLength >= required && lastParam.consumesRest)
-                        )
-                )) {
-                    matchedDefault.add(c);
-                }
+        NavigableMap<String, String[]> words = index.getVisibleCommands(command.getManager(), issuer).getWords(node, cmdIndex);
+        String prefix = args.length > 0 ? args[cmdIndex] : "";
+        for (Map.Entry<String, String[]> entry : words.tailMap(prefix, true).entrySet()) {
+            if (!ApacheCommonsLangUtil.startsWithIgnoreCase(entry.getKey(), prefix)) {
+                return;
             }
-            if (!matchedDefault.isEmpty()) {
-                return new RouteSearch(matchedDefault, args, commandLabel, null, completion);
+            for (String word : entry.getValue()) {
+                if (!sink.add(word)) {
+                    return;
+                }
             }
         }
-
-        if (!unknownCommands.isEmpty()) {
-            return new RouteSearch(unknownCommands, args, commandLabel, null, completion);
-        }
-
-        return null;
     }
 
     static class CommandRouteResult {
@@ -139,15 +171,466 @@ class CommandRouter {
     static class RouteSearch {
         final String[] args;
         final Set<RegisteredCommand> commands;
+        final DispatchTable dispatch;
         final String commandLabel;
         final String subcommand;
 
-        RouteSearch(Set<RegisteredCommand> commands, String[] args, String commandLabel, String subcommand, boolean completion) {
-            this.commands = commands;
+        RouteSearch(DispatchTable dispatch, String[] args, String commandLabel, String subcommand, boolean completion) {
+            this.commands = dispatch.commands;
+            this.dispatch = dispatch;
             this.args = args;
             this.commandLabel = commandLabel.toLowerCase();
             this.subcommand = subcommand;
         }
     }
 
+    /**
+     * A token trie of every subcommand registered to a root command. Each edge is a single lowercased token of the
+     * subcommand, matched case insensitively, so routing is a single left to right walk over the input.
+     * <p>
+     * Identical subtrees are interned during compilation, so pipe alternatives such as "foo|bar baz" end up as
+     * two edges pointing to the same node rather than fully expanded copies.
+     */
+    static class RouteIndex {
+        final RouteNode root;
+        final DispatchTable unknownCommands;
+        /**
+         * The default commands able to take a given number of arguments, indexed by that number. The last entry holds
+         * the ones taking any larger number of arguments, which is only those consuming the rest of the input.
+         */
+        private final List<DispatchTable> defaultCommandsByArity;
+        /**
+         * The distinct permission nodes required by the subcommands, which make up the permission profile of an issuer.
+         */
+        final String[] permissionNodes;
+        /**
+         * The permission nodes each subcommand requires, as indexes into {@link #permissionNodes}.
+         */
+        private final Map<RegisteredCommand, BitSet> requiredNodes;
+        private final Map<BitSet, VisibleCommands> visibleByProfile = new ConcurrentHashMap<>();
+        /**
+         * Computed on first use, as the root may still be getting children, each of which compiles a new index.
+         */
+        private volatile PermissionCover permissionCover;
+
+        private RouteIndex(RouteNode root, Set<RegisteredCommand> defaultCommands, Set<RegisteredCommand> unknownCommands) {
+            this.root = root;
+            this.unknownCommands = DispatchTable.compile(unknownCommands);
+            this.defaultCommandsByArity = indexByArity(defaultCommands);
+
+            Map<String, Integer> nodeIndexes = new LinkedHashMap<>();
+            Map<RegisteredCommand, BitSet> requiredNodes = new HashMap<>();
+            for (RegisteredCommand<?> command : root.reachable) {
+                BitSet required = new BitSet();
+                for (String permission : command.getRequiredPermissions()) {
+                    Integer nodeIndex = nodeIndexes.get(permission);
+                    if (nodeIndex == null) {
+                        nodeIndex = nodeIndexes.size();
+                        nodeIndexes.put(permission, nodeIndex);
+                    }
+                    required.set(nodeIndex);
+                }
+                requiredNodes.put(command, required);
+            }
+            this.permissionNodes = nodeIndexes.keySet().toArray(new String[0]);
+            this.requiredNodes = requiredNodes;
+        }
+
+        /**
+         * Gets the subcommands visible to the issuer, shared by every issuer granted the same permission nodes.
+         */
+        VisibleCommands getVisibleCommands(CommandManager manager, CommandIssuer issuer) {
+            BitSet profile = manager.getGrantedPermissions(issuer, permissionNodes);
+            VisibleCommands visible = visibleByProfile.get(profile);
+            if (visible == null) {
+                if (visibleByProfile.size() >= MAX_PROFILES) {
+                    visibleByProfile.clear();
+                }
+                visible = visibleByProfile.computeIfAbsent(profile, p -> new VisibleCommands(this, p));
+            }
+            return visible;
+        }
+
+        PermissionCover getPermissionCover(RootCommand rootCommand) {
+            PermissionCover cover = this.permissionCover;
+            if (cover == null) {
+                cover = PermissionCover.compute(rootCommand);
+                this.permissionCover = cover;
+            }
+            return cover;
+        }
+
+        boolean isVisible(RegisteredCommand command, BitSet profile) {
+            if (command.isPrivate) {
+                return false;
+            }
+            BitSet required = requiredNodes.get(command);
+            for (int i = required.nextSetBit(0); i >= 0; i = required.nextSetBit(i + 1)) {
+                if (!profile.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        DispatchTable getDefaultCommands(int argLength) {
+            return defaultCommandsByArity.get(Math.min(argLength, defaultCommandsByArity.size() - 1));
+        }
+
+        private static List<DispatchTable> indexByArity(Set<RegisteredCommand> defaultCommands) {
+            int maxArity = 0;
+            for (RegisteredCommand c : defaultCommands) {
+                maxArity = Math.max(maxArity, c.requiredResolvers + c.optionalResolvers);
+            }
+
+            List<DispatchTable> byArity = new ArrayList<>(maxArity + 2);
+            for (int argLength = 0; argLength <= maxArity + 1; argLength++) {
+                Set<RegisteredCommand> matchedDefault = new HashSet<>();
+                for (RegisteredCommand c : defaultCommands) {
+                    int required = c.requiredResolvers;
+                    int optional = c.optionalResolvers;
+                    CommandParameter lastParam = c.parameters.length > 0 ? c.parameters[c.parameters.length - 1] : null;
+                    if (argLength <= required + optional || (
+                            lastParam != null && (
+                                    lastParam.getType() == String[].class
+                                            ||
+                                            (argLength >= required && lastParam.consumesRest)
+                            )
+                    )) {
+                        matchedDefault.add(c);
+                    }
+                }
+                byArity.add(DispatchTable.compile(immutableCopy(matchedDefault)));
+            }
+            return byArity;
+        }
+
+        static RouteIndex compile(SetMultimap<String, RegisteredCommand> subCommands) {
+            NodeBuilder root = new NodeBuilder();
+            for (Map.Entry<String, Collection<RegisteredCommand>> entry : subCommands.asMap().entrySet()) {
+                String key = entry.getKey();
+                if (BaseCommand.isSpecialSubcommand(key)) {
+                    continue;
+                }
+                NodeBuilder node = root;
+                for (String token : ACFPatterns.SPACE.split(key)) {
+                    node = node.children.computeIfAbsent(token, t -> new NodeBuilder());
+                }
+                node.commands.addAll(entry.getValue());
+            }
+
+            return new RouteIndex(
+                    root.build(new HashMap<>()),
+                    immutableCopy(subCommands.get(DEFAULT)),
+                    immutableCopy(subCommands.get(CATCHUNKNOWN))
+            );
+        }
+
+        private static Set<RegisteredCommand> immutableCopy(Set<RegisteredCommand> commands) {
+            return commands.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(commands));
+        }
+    }
+
+    /**
+     * The completion words of the subcommands visible to a permission profile, worked out per node of the index the
+     * first time it is completed.
+     */
+    static class VisibleCommands {
+        private final RouteIndex index;
+        private final BitSet profile;
+        private final Map<NodeDepth, NavigableMap<String, String[]>> words = new ConcurrentHashMap<>();
+
+        VisibleCommands(RouteIndex index, BitSet profile) {
+            this.index = index;
+            this.profile = profile;
+        }
+
+        /**
+         * Gets the words completing the subcommands below the node, keyed by the token of the child they are below.
+         *
+         * @param node  The node the preceding arguments led to.
+         * @param depth The number of preceding arguments, as nodes may be shared between subcommands of different depths.
+         */
+        NavigableMap<String, String[]> getWords(RouteNode node, int depth) {
+            return words.computeIfAbsent(new NodeDepth(node, depth), key -> {
+                NavigableMap<String, String[]> words = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (Map.Entry<String, RouteNode> child : node.children.entrySet()) {
+                    Set<String> childWords = new LinkedHashSet<>();
+                    for (RegisteredCommand command : child.getValue().reachable) {
+                        if (!index.isVisible(command, profile)) {
+                            continue;
+                        }
+                        String[] split = ACFPatterns.SPACE.split(command.prefSubCommand);
+                        if (depth < split.length) {
+                            childWords.add(split[depth]);
+                        }
+                    }
+                    if (!childWords.isEmpty()) {
+                        words.put(child.getKey(), childWords.toArray(new String[0]));
+                    }
+                }
+                return Collections.unmodifiableNavigableMap(words);
+            });
+        }
+    }
+
+    private static final class NodeDepth {
+        private final RouteNode node;
+        private final int depth;
+
+        NodeDepth(RouteNode node, int depth) {
+            this.node = node;
+            this.depth = depth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof NodeDepth)) return false;
+            NodeDepth that = (NodeDepth) o;
+            return node == that.node && depth == that.depth;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(node) + depth;
+        }
+    }
+
+    static class RouteNode {
+        final NavigableMap<String, RouteNode> children;
+        final Set<RegisteredCommand> commands;
+        final DispatchTable dispatch;
+        /**
+         * The commands of this node and of all of the nodes below it.
+         */
+        final Set<RegisteredCommand> reachable;
+
+        private RouteNode(NavigableMap<String, RouteNode> children, Set<RegisteredCommand> commands) {
+            this.children = children;
+            this.commands = commands;
+            this.dispatch = DispatchTable.compile(commands);
+            if (children.isEmpty()) {
+                this.reachable = commands;
+            } else {
+                Set<RegisteredCommand> reachable = new LinkedHashSet<>(commands);
+                for (RouteNode child : children.values()) {
+                    reachable.addAll(child.reachable);
+                }
+                this.reachable = Collections.unmodifiableSet(reachable);
+            }
+        }
+    }
+
+    /**
+     * Picks which of several overloads registered to the same subcommand should handle the input.
+     * <p>
+     * Candidates are grouped ahead of time by the number of arguments they accept and ordered by how much input they
+     * consume, so a lookup is an array index followed by cheap syntactic checks of the arguments: numeric parameters
+     * only accept numeric looking input and parameters with static {@link co.aikar.commands.annotation.Values} only
+     * accept one of those values. If no candidate passes those checks, the one consuming the most input is used.
+     */
+    static class DispatchTable {
+        private static final Overload[] NO_OVERLOADS = new Overload[0];
+        private static final DispatchTable EMPTY = new DispatchTable(Collections.emptySet(), null, new Overload[0][], new Overload[0][]);
+
+        final Set<RegisteredCommand> commands;
+        private final RegisteredCommand single;
+        private final Overload[][] executeByArity;
+        private final Overload[][] completeByArity;
+
+        private DispatchTable(Set<RegisteredCommand> commands, RegisteredCommand single, Overload[][] executeByArity, Overload[][] completeByArity) {
+            this.commands = commands;
+            this.single = single;
+            this.executeByArity = executeByArity;
+            this.completeByArity = completeByArity;
+        }
+
+        /**
+         * @param commands An immutable set of the overloads, exposed as-is through {@link #commands}.
+         */
+        static DispatchTable compile(Set<RegisteredCommand> commands) {
+            if (commands.isEmpty()) {
+                return EMPTY;
+            }
+            if (commands.size() == 1) {
+                return new DispatchTable(commands, ACFUtil.getFirstElement(commands), null, null);
+            }
+
+            List<Overload> overloads = new ArrayList<>(commands.size());
+            int maxArity = 0;
+            for (RegisteredCommand c : commands) {
+                overloads.add(new Overload(c));
+                maxArity = Math.max(maxArity, c.requiredResolvers + c.optionalResolvers);
+            }
+            // Among overloads consuming as much input, try the more constrained ones first so a catch-all String
+            // overload doesn't shadow a numeric or @Values one.
+            overloads.sort(Comparator.comparingInt((Overload o) -> o.command.consumeInputResolvers)
+                    .thenComparingInt(o -> o.constrainedArgs)
+                    .reversed());
+
+            Overload[][] executeByArity = new Overload[maxArity + 1][];
+            Overload[][] completeByArity = new Overload[maxArity + 1][];
+            for (int argLength = 0; argLength <= maxArity; argLength++) {
+                List<Overload> execute = new ArrayList<>();
+                List<Overload> complete = new ArrayList<>();
+                for (Overload overload : overloads) {
+                    int required = overload.command.requiredResolvers;
+                    int optional = overload.command.optionalResolvers;
+                    if (argLength <= required + optional) {
+                        complete.add(overload);
+                        if (argLength >= required) {
+                            execute.add(overload);
+                        }
+                    }
+                }
+                executeByArity[argLength] = execute.toArray(NO_OVERLOADS);
+                completeByArity[argLength] = complete.toArray(NO_OVERLOADS);
+            }
+            return new DispatchTable(commands, null, executeByArity, completeByArity);
+        }
+
+        RegisteredCommand select(String[] args, boolean completion) {
+            if (single != null) {
+                return single;
+            }
+            Overload[][] byArity = completion ? completeByArity : executeByArity;
+            if (args.length >= byArity.length || byArity[args.length].length == 0) {
+                return null;
+            }
+
+            Overload[] candidates = byArity[args.length];
+            // The last argument is still being typed while completing, so it can't rule out an overload yet.
+            int checkedArgs = completion ? args.length - 1 : args.length;
+            for (Overload candidate : candidates) {
+                if (candidate.accepts(args, checkedArgs)) {
+                    return candidate.command;
+                }
+            }
+            return candidates[0].command;
+        }
+    }
+
+    private static class Overload {
+        final RegisteredCommand command;
+        /**
+         * The shape of each argument position, up to the first parameter which may or may not consume input.
+         */
+        private final ArgumentShape[] shapes;
+        private final int constrainedArgs;
+
+        Overload(RegisteredCommand command) {
+            this.command = command;
+            List<ArgumentShape> shapes = new ArrayList<>();
+            for (CommandParameter parameter : command.parameters) {
+                if (!parameter.canConsumeInput()) {
+                    continue;
+                }
+                if (parameter.consumesRest || parameter.getResolver() instanceof IssuerAwareContextResolver) {
+                    break;
+                }
+                shapes.add(ArgumentShape.of(parameter));
+            }
+            this.shapes = shapes.toArray(new ArgumentShape[0]);
+            this.constrainedArgs = (int) shapes.stream().filter(shape -> shape != ArgumentShape.ANY).count();
+        }
+
+        boolean accepts(String[] args, int count) {
+            int checked = Math.min(count, shapes.length);
+            for (int i = 0; i < checked; i++) {
+                if (!shapes[i].accepts(args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class ArgumentShape {
+        private static final ArgumentShape ANY = new ArgumentShape(false, null);
+        private static final ArgumentShape NUMERIC = new ArgumentShape(true, null);
+
+        private final boolean numeric;
+        private final Set<String> values;
+
+        private ArgumentShape(boolean numeric, Set<String> values) {
+            this.numeric = numeric;
+            this.values = values;
+        }
+
+        static ArgumentShape of(CommandParameter parameter) {
+            String[] values = parameter.getValues();
+            if (values != null) {
+                Set<String> staticValues = new HashSet<>();
+                for (String value : values) {
+                    // Completion references are only known once resolved against the issuer.
+                    if ("*".equals(value) || value.startsWith("@") || ACFPatterns.COLONEQUALS.matcher(value).find()) {
+                        return ANY;
+                    }
+                    staticValues.add(value.toLowerCase());
+                }
+                return new ArgumentShape(false, staticValues);
+            }
+
+            Class<?> type = parameter.getType();
+            if (Number.class.isAssignableFrom(type) || (type.isPrimitive() && type != boolean.class && type != char.class)) {
+                return NUMERIC;
+            }
+            return ANY;
+        }
+
+        boolean accepts(String arg) {
+            if (values != null) {
+                return values.contains(arg.toLowerCase());
+            }
+            return !numeric || looksNumeric(arg);
+        }
+
+        /**
+         * A lenient check accepting anything starting like a number, so hex, binary and suffixed input still pass.
+         */
+        private static boolean looksNumeric(String arg) {
+            int i = 0;
+            int length = arg.length();
+            if (i < length && (arg.charAt(i) == '-' || arg.charAt(i) == '+')) {
+                i++;
+            }
+            if (i < length && arg.charAt(i) == '.') {
+                i++;
+            }
+            return i < length && Character.isDigit(arg.charAt(i));
+        }
+    }
+
+    private static class NodeBuilder {
+        final Map<String, NodeBuilder> children = new HashMap<>();
+        final Set<RegisteredCommand> commands = new HashSet<>();
+
+        /**
+         * Builds the immutable node, reusing an already built node when one with the same commands and children exists.
+         */
+        RouteNode build(Map<List<Object>, RouteNode> interned) {
+            NavigableMap<String, RouteNode> builtChildren = Collections.emptyNavigableMap();
+            if (!children.isEmpty()) {
+                builtChildren = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                for (Map.Entry<String, NodeBuilder> entry : children.entrySet()) {
+                    builtChildren.put(entry.getKey(), entry.getValue().build(interned));
+                }
+            }
+
+            // Children are already interned, so comparing them by identity is enough to find an equal subtree.
+            List<Object> key = Arrays.asList(commands, builtChildren);
+            RouteNode existing = interned.get(key);
+            if (existing != null) {
+                return existing;
+            }
+
+            RouteNode node = new RouteNode(
+                    builtChildren.isEmpty() ? builtChildren : Collections.unmodifiableNavigableMap(builtChildren),
+                    commands.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(commands))
+            );
+            interned.put(key, node);
+            return node;
+        }
+    }
 }
@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import co.aikar.commands.CommandCompletions.CommandCompletionHandler;
+import co.aikar.commands.CommandCompletions.FutureCompletionHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caches the results of a single completion handler, so a slow lookup isn't repeated for every keystroke of every issuer.
+ * <p>
+ * Results are keyed by the completion config and, if a scope function is given, by the scope of the issuer, but never by
+ * the input being completed. Only cache handlers whose results don't depend on the input, as the input is filtered
+ * afterwards anyway.
+ * <p>
+ * A result is fresh for the TTL, and may be served stale for a while longer while it is reloaded in the background.
+ * Concurrent requests for the same missing result wait for a single lookup instead of each running their own.
+ * <p>
+ * Enable it with {@link CommandCompletions#enableCaching(String, long, long, java.util.concurrent.TimeUnit, int, Function)}.
+ */
+public class CompletionCache {
+
+    private final String id;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final int maxSize;
+    private final Function<CommandIssuer, Object> scope;
+
+    private final Map<Key, Entry> entries;
+    private final ConcurrentMap<Key, CompletableFuture<Collection<String>>> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param id         The completion id this cache belongs to.
+     * @param ttlNanos   How long a result is served without reloading it.
+     * @param staleNanos How long after the TTL a result may still be served while it is reloaded in the background.
+     * @param maxSize    How many results are kept, evicting the least recently used ones beyond that.
+     * @param scope      Maps issuers to the key their results are shared by, or null to share results between all issuers.
+     */
+    CompletionCache(String id, long ttlNanos, long staleNanos, int maxSize, Function<CommandIssuer, Object> scope) {
+        if (ttlNanos <= 0 || staleNanos < 0 || maxSize < 1) {
+            throw new IllegalArgumentException("A completion cache needs a positive TTL and size, and a non-negative stale window");
+        }
+        this.id = id;
+        this.ttlNanos = ttlNanos;
+        this.staleNanos = staleNanos;
+        this.maxSize = maxSize;
+        this.scope = scope;
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > CompletionCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached completions, looking them up if they are missing or expired.
+     *
+     * @param config          The raw completion config.
+     * @param handler         The handler to look the completions up with.
+     * @param context         The context to pass to the handler.
+     * @param refreshExecutor Where stale results are reloaded, or null if the handler may only run on this thread,
+     *                        in which case stale results are reloaded right away instead.
+     */
+    Collection<String> get(String config, CommandCompletionHandler handler, CommandCompletionContext context, Executor refreshExecutor) {
+        Key key = new Key(config, scopeOf(context.getIssuer()));
+        Entry entry = getEntry(key);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.values;
+            }
+            if (refreshExecutor != null && age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                refresh(key, handler, context, refreshExecutor);
+                return entry.values;
+            }
+        }
+        misses.increment();
+        return load(key, handler, context);
+    }
+
+    /**
+     * Returns a future of the cached completions, looking them up without blocking if they are missing or expired.
+     * Stale results are served while the handler reloads them.
+     *
+     * @param config  The raw completion config.
+     * @param handler The handler to look the completions up with.
+     * @param context The context to pass to the handler.
+     */
+    CompletableFuture<Collection<String>> getAsync(String config, FutureCompletionHandler handler, CommandCompletionContext context) {
+        Key key = new Key(config, scopeOf(context.getIssuer()));
+        Entry entry = getEntry(key);
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return CompletableFuture.completedFuture(entry.values);
+            }
+            if (age < ttlNanos + staleNanos) {
+                staleHits.increment();
+                loadAsync(key, handler, context);
+                return CompletableFuture.completedFuture(entry.values);
+            }
+        }
+        misses.increment();
+        return loadAsync(key, handler, context);
+    }
+
+    /**
+     * Returns the cached completions without looking them up, serving stale results as well, for callers that are not
+     * allowed to run the handler.
+     *
+     * @return The cached completions, or null if there are none.
+     */
+    Collection<String> getIfPresent(String config, CommandIssuer issuer) {
+        Entry entry = getEntry(new Key(config, scopeOf(issuer)));
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos + staleNanos) {
+                (age < ttlNanos ? hits : staleHits).increment();
+                return entry.values;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * @return Whether {@link #getIfPresent(String, CommandIssuer)} would serve a result, without counting the request.
+     */
+    boolean contains(String config, CommandIssuer issuer) {
+        Entry entry = getEntry(new Key(config, scopeOf(issuer)));
+        return entry != null && System.nanoTime() - entry.loadedAt < ttlNanos + staleNanos;
+    }
+
+    private Object scopeOf(CommandIssuer issuer) {
+        return scope != null && issuer != null ? scope.apply(issuer) : null;
+    }
+
+    private Entry getEntry(Key key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private Collection<String> load(Key key, CommandCompletionHandler handler, CommandCompletionContext context) {
+        CompletableFuture<Collection<String>> future = new CompletableFuture<>();
+        CompletableFuture<Collection<String>> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                ACFUtil.sneaky(e.getCause() != null ? e.getCause() : e);
+                return null;
+            }
+        }
+
+        try {
+            Collection<String> values = store(key, handler, context);
+            future.complete(values);
+            return values;
+        } catch (Throwable t) {
+            loadFailures.increment();
+            future.completeExceptionally(t);
+            ACFUtil.sneaky(t);
+            return null;
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    private CompletableFuture<Collection<String>> loadAsync(Key key, FutureCompletionHandler handler, CommandCompletionContext context) {
+        CompletableFuture<Collection<String>> future = new CompletableFuture<>();
+        CompletableFuture<Collection<String>> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing.thenApply(Function.identity());
+        }
+
+        CompletableFuture<Collection<String>> lookup;
+        try {
+            //noinspection unchecked
+            lookup = handler.getCompletionsAsync(context);
+        } catch (Throwable t) {
+            lookup = new CompletableFuture<>();
+            lookup.completeExceptionally(t);
+        }
+        if (lookup == null) {
+            lookup = CompletableFuture.completedFuture(null);
+        }
+        lookup.whenComplete((values, t) -> {
+            try {
+                if (t != null) {
+                    loadFailures.increment();
+                    future.completeExceptionally(t);
+                } else {
+                    future.complete(storeValues(key, values));
+                }
+            } finally {
+                loading.remove(key, future);
+            }
+        });
+        // Cancelling a request doesn't cancel the lookup shared with other requests, whose result is cached regardless.
+        return future.thenApply(Function.identity());
+    }
+
+    private void refresh(Key key, CommandCompletionHandler handler, CommandCompletionContext context, Executor executor) {
+        CompletableFuture<Collection<String>> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        CommandOperationStack.CapturedOperation operation = CommandOperationStack.capture();
+        try {
+            executor.execute(new CommandBulkhead.RejectableTask() {
+                @Override
+                public void run() {
+                    operation.run(() -> {
+                        try {
+                            future.complete(store(key, handler, context));
+                        } catch (Throwable t) {
+                            // The stale result is served until it expires, then the handler runs again on the next request.
+                            loadFailures.increment();
+                            future.completeExceptionally(t);
+                        } finally {
+                            loading.remove(key, future);
+                        }
+                    });
+                }
+
+                @Override
+                public void rejected(RejectedExecutionException e) {
+                    loading.remove(key, future);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, future);
+            future.completeExceptionally(e);
+        }
+    }
+
+    private Collection<String> store(Key key, CommandCompletionHandler handler, CommandCompletionContext context) throws InvalidCommandArgument {
+        //noinspection unchecked
+        return storeValues(key, handler.getCompletions(context));
+    }
+
+    private Collection<String> storeValues(Key key, Collection<String> values) {
+        if (values == null) {
+            // A lookup failure, not a result worth keeping.
+            return null;
+        }
+        values = Collections.unmodifiableList(new ArrayList<>(values));
+        Entry entry = new Entry(values, System.nanoTime());
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+        return values;
+    }
+
+    /**
+     * Drops all cached results, such as after the data they were looked up from changed.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return How many results are cached.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return How many requests were served a fresh result.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return How many requests were served a stale result.
+     */
+    public long getStaleHitCount() {
+        return staleHits.sum();
+    }
+
+    /**
+     * @return How many requests found no usable result, including those that waited on a lookup already running.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return How many missing requests waited on a lookup already running instead of running their own.
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getLoadFailureCount() {
+        return loadFailures.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private static final class Key {
+        private final String config;
+        private final Object scope;
+        private final int hash;
+
+        Key(String config, Object scope) {
+            this.config = config;
+            this.scope = scope;
+            this.hash = Objects.hash(config, scope);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(config, key.config) && Objects.equals(scope, key.scope);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final Collection<String> values;
+        private final long loadedAt;
+
+        Entry(Collection<String> values, long loadedAt) {
+            this.values = values;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of a single completion request, after which the completions gathered so far are returned and the
+ * lookups still running are cancelled.
+ */
+final class CompletionDeadline {
+    private final CommandManager manager;
+    private final long expiresAt;
+
+    private CompletionDeadline(CommandManager manager, long expiresAt) {
+        this.manager = manager;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return The deadline of a request starting now, or null if the manager has none configured.
+     */
+    static CompletionDeadline start(CommandManager manager) {
+        long timeout = manager.getCompletionDeadline(TimeUnit.NANOSECONDS);
+        return timeout > 0 ? new CompletionDeadline(manager, System.nanoTime() + timeout) : null;
+    }
+
+    boolean isExpired() {
+        return System.nanoTime() - expiresAt >= 0;
+    }
+
+    /**
+     * @return A future completed once the deadline expires.
+     */
+    CompletableFuture<Void> expiry() {
+        CompletableFuture<Void> expiry = new CompletableFuture<>();
+        long remaining = expiresAt - System.nanoTime();
+        if (remaining <= 0) {
+            expiry.complete(null);
+        } else {
+            Timer.INSTANCE.schedule(() -> expiry.complete(null), remaining, TimeUnit.NANOSECONDS);
+        }
+        return expiry;
+    }
+
+    /**
+     * Records a completion that was still running when the deadline expired.
+     */
+    void reportSlow(String id, long latencyNanos) {
+        manager.getCompletionTimings().record(manager, id, latencyNanos);
+    }
+
+    private static final class Timer {
+        // A single daemon thread, which only ever completes futures.
+        private static final ScheduledExecutorService INSTANCE;
+
+        static {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "ACF Completion Deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.setRemoveOnCancelPolicy(true);
+            INSTANCE = timer;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the last tab completions of each issuer, so typing further into the same argument narrows them down
+ * instead of looking them up again on every keystroke.
+ * <p>
+ * A memo is only reused for the same root command and preceding arguments, while neither the commands of the root nor
+ * the registered completions changed, and for a few seconds at most, bounding how long a permission change goes
+ * unnoticed unless the issuer is {@link #invalidate(CommandIssuer) invalidated} right away.
+ */
+final class CompletionMemo {
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Keyed by the platform issuer, which is held weakly so players that left are dropped.
+     */
+    private final Map<Object, Entry> entries = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @return The remembered completions of the issuer narrowed down to the input, or null if they can't be reused.
+     */
+    List<String> narrow(CommandManager manager, CommandIssuer issuer, RootCommand root, String[] args, boolean commandsOnly) {
+        Object key = issuer.getIssuer();
+        Entry entry = key != null ? entries.get(key) : null;
+        if (entry == null || entry.root != root || entry.commandsOnly != commandsOnly
+                || entry.routeIndex != manager.getRouter().getRouteIndex(root)
+                || entry.handlers != manager.getCommandCompletions().getCompletionHandlers()
+                || System.nanoTime() - entry.createdAt > TTL_NANOS) {
+            return null;
+        }
+
+        String prefix = args.length > 0 ? args[args.length - 1] : "";
+        if (!entry.matches(args) || !ApacheCommonsLangUtil.startsWithIgnoreCase(prefix, entry.prefix)) {
+            return null;
+        }
+        if (prefix.length() == entry.prefix.length()) {
+            return entry.values;
+        }
+
+        List<String> narrowed = new ArrayList<>();
+        for (String value : entry.values) {
+            if (ApacheCommonsLangUtil.startsWithIgnoreCase(value, prefix)) {
+                narrowed.add(value);
+            }
+        }
+        entries.put(key, new Entry(entry, prefix, narrowed));
+        return narrowed;
+    }
+
+    /**
+     * Remembers the complete completions of an issuer.
+     */
+    void remember(CommandManager manager, CommandIssuer issuer, RootCommand root, String[] args, boolean commandsOnly, List<String> values) {
+        Object key = issuer.getIssuer();
+        if (key == null) {
+            return;
+        }
+        String prefix = args.length > 0 ? args[args.length - 1] : "";
+        for (String value : values) {
+            if (value.equalsIgnoreCase(prefix)) {
+                // The input may have been echoed back as the completion, which typing further changes.
+                entries.remove(key);
+                return;
+            }
+        }
+        entries.put(key, new Entry(root, commandsOnly, manager.getRouter().getRouteIndex(root),
+                manager.getCommandCompletions().getCompletionHandlers(),
+                args.length > 0 ? Arrays.copyOf(args, args.length - 1) : new String[0], prefix, values, System.nanoTime()));
+    }
+
+    void invalidate(CommandIssuer issuer) {
+        Object key = issuer.getIssuer();
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    private static final class Entry {
+        private final RootCommand root;
+        private final boolean commandsOnly;
+        private final Object routeIndex;
+        private final Object handlers;
+        private final String[] preceding;
+        private final String prefix;
+        private final List<String> values;
+        private final long createdAt;
+
+        Entry(RootCommand root, boolean commandsOnly, Object routeIndex, Object handlers, String[] preceding, String prefix,
+              List<String> values, long createdAt) {
+            this.root = root;
+            this.commandsOnly = commandsOnly;
+            this.routeIndex = routeIndex;
+            this.handlers = handlers;
+            this.preceding = preceding;
+            this.prefix = prefix;
+            this.values = values;
+            this.createdAt = createdAt;
+        }
+
+        Entry(Entry entry, String prefix, List<String> values) {
+            this(entry.root, entry.commandsOnly, entry.routeIndex, entry.handlers, entry.preceding, prefix, values, entry.createdAt);
+        }
+
+        /**
+         * @return Whether the arguments before the one being completed are the same.
+         */
+        boolean matches(String[] args) {
+            if (Math.max(0, args.length - 1) != preceding.length) {
+                return false;
+            }
+            for (int i = 0; i < preceding.length; i++) {
+                if (!preceding[i].equals(args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Collects the tab completions of a single request as they are produced, keeping only the distinct candidates starting
+ * with the input being completed, in the order they were offered, up to a limit.
+ * <p>
+ * Handlers registered with {@link CommandCompletions#registerSinkCompletion(String, CommandCompletions.CompletionSinkHandler)}
+ * push their candidates straight into the sink, and should stop once {@link #add(String)} returns false. The values of
+ * handlers registered with {@link CommandCompletions#registerFutureCompletion(String, CommandCompletions.FutureCompletionHandler)}
+ * are added once their lookup is done, see {@link #toFuture()}.
+ */
+public class CompletionSink {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final String prefix;
+    private final int limit;
+    private final Set<String> seen = new HashSet<>();
+    private final List<String> values = new ArrayList<>();
+    /**
+     * Lookups still running, whose values are added once they are done.
+     */
+    private List<Pending> pending;
+    private CompletionDeadline deadline;
+    /**
+     * Completed to stop waiting for the lookups still running, see {@link #completeNow(CompletableFuture)}.
+     */
+    private CompletableFuture<Void> cutOff;
+    private boolean syncRequired;
+
+    public CompletionSink(String prefix) {
+        this(prefix, UNLIMITED);
+    }
+
+    /**
+     * @param prefix The input being completed, which candidates must start with ignoring case.
+     * @param limit  How many candidates are kept at most.
+     */
+    public CompletionSink(String prefix, int limit) {
+        this.prefix = prefix != null ? prefix : "";
+        this.limit = limit;
+    }
+
+    /**
+     * @return The input being completed.
+     */
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return Whether the candidate starts with the input being completed.
+     */
+    public boolean matches(String candidate) {
+        return candidate != null && (prefix.isEmpty() || ApacheCommonsLangUtil.startsWithIgnoreCase(candidate, prefix));
+    }
+
+    /**
+     * Offers a candidate, which is kept if it matches the input and wasn't offered before.
+     *
+     * @return Whether more candidates are wanted.
+     */
+    public boolean add(String candidate) {
+        return offer(candidate) && !isExpired();
+    }
+
+    /**
+     * Offers candidates until the sink is full.
+     *
+     * @return Whether more candidates are wanted.
+     */
+    public boolean addAll(Iterable<String> candidates) {
+        return offerAll(candidates) && !isExpired();
+    }
+
+    private boolean offer(String candidate) {
+        if (values.size() >= limit) {
+            return false;
+        }
+        if (matches(candidate) && seen.add(candidate)) {
+            values.add(candidate);
+        }
+        return values.size() < limit;
+    }
+
+    private boolean offerAll(Iterable<String> candidates) {
+        for (String candidate : candidates) {
+            if (!offer(candidate)) {
+                return false;
+            }
+        }
+        return values.size() < limit;
+    }
+
+    /**
+     * Adds completions the platform already had, which aren't filtered by the input.
+     */
+    void include(Collection<String> completions) {
+        for (String completion : completions) {
+            if (values.size() >= limit) {
+                return;
+            }
+            if (completion != null && seen.add(completion)) {
+                values.add(completion);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of a lookup still running once it is done, after the candidates offered directly.
+     *
+     * @param id     The id of the completion looking the values up.
+     * @param lookup The lookup of the handler, cancelled if it is still running when the deadline expires.
+     * @param values The values of the lookup to add, which must not fail unless the lookup was cancelled.
+     */
+    void defer(String id, CompletableFuture<?> lookup, CompletableFuture<? extends Collection<String>> values) {
+        if (pending == null) {
+            pending = new ArrayList<>(2);
+        }
+        pending.add(new Pending(id, lookup, values));
+    }
+
+    /**
+     * @return Whether lookups are still running for this sink.
+     */
+    public boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * Marks the request as needing the main thread, as it was requested off of it and some of its completions aren't
+     * async-safe.
+     */
+    void requireSync() {
+        this.syncRequired = true;
+    }
+
+    /**
+     * @return Whether the request has to be completed on the main thread instead, in which case nothing was completed.
+     */
+    public boolean isSyncRequired() {
+        return syncRequired;
+    }
+
+    /**
+     * Starts the deadline of the request, unless it was started already.
+     */
+    void startDeadline(CommandManager manager) {
+        if (deadline == null) {
+            deadline = CompletionDeadline.start(manager);
+        }
+    }
+
+    CompletionDeadline getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return Whether the deadline of the request expired, after which no more candidates are wanted.
+     */
+    public boolean isExpired() {
+        return deadline != null && deadline.isExpired();
+    }
+
+    /**
+     * Waits for the lookups still running without blocking, then adds their values in the order they were started.
+     * Nothing may be offered to the sink meanwhile.
+     * <p>
+     * If the deadline expires first, only the values of the lookups done by then are added, and the others are
+     * cancelled.
+     *
+     * @return A future completed with the collected completions.
+     */
+    public CompletableFuture<List<String>> toFuture() {
+        List<Pending> pending = this.pending;
+        if (pending == null) {
+            return CompletableFuture.completedFuture(values);
+        }
+        this.pending = null;
+        CompletableFuture<?>[] futures = new CompletableFuture[pending.size()];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = pending.get(i).values;
+        }
+        CompletableFuture<Void> cutOff = this.cutOff = new CompletableFuture<>();
+        CompletionDeadline deadline = this.deadline;
+        CompletableFuture<?> done = deadline != null
+                ? CompletableFuture.anyOf(CompletableFuture.allOf(futures), deadline.expiry(), cutOff)
+                : CompletableFuture.anyOf(CompletableFuture.allOf(futures), cutOff);
+        return done.handle((ignored, t) -> {
+            boolean wanted = true;
+            for (Pending lookup : pending) {
+                if (!lookup.values.isDone()) {
+                    lookup.lookup.cancel(true);
+                    if (deadline != null) {
+                        deadline.reportSlow(lookup.id, System.nanoTime() - lookup.startedAt);
+                    }
+                } else if (wanted && !lookup.values.isCompletedExceptionally()) {
+                    wanted = offerAll(lookup.values.join());
+                }
+            }
+            return values;
+        });
+    }
+
+    /**
+     * Gets the completions of a future returned for this sink without waiting on the lookups still running, for
+     * callers that have to answer right away. Only the values of the lookups done by now are added, and the others are
+     * cancelled.
+     *
+     * @param future The future returned by {@link #toFuture()}, or composed from it.
+     * @return The collected completions.
+     */
+    public List<String> completeNow(CompletableFuture<List<String>> future) {
+        CompletableFuture<Void> cutOff = this.cutOff;
+        if (cutOff != null) {
+            // Runs the collection of the values on this thread, unless a lookup finishing meanwhile already runs it.
+            cutOff.complete(null);
+        }
+        return future.join();
+    }
+
+    /**
+     * Waits for the completions of a future returned for this sink, up to the given time, before getting them without
+     * waiting any longer, see {@link #completeNow(CompletableFuture)}.
+     *
+     * @param future  The future returned by {@link #toFuture()}, or composed from it.
+     * @param timeout How long to wait at most.
+     * @param unit    The unit of the timeout.
+     * @return The collected completions.
+     */
+    public List<String> complete(CompletableFuture<List<String>> future, long timeout, TimeUnit unit) {
+        try {
+            return future.get(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException ignored) {
+        }
+        return completeNow(future);
+    }
+
+    public boolean isFull() {
+        return values.size() >= limit;
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * @return The collected completions. The list is not copied, and belongs to the caller once the request is done.
+     */
+    public List<String> getValues() {
+        return values;
+    }
+
+    private static final class Pending {
+        private final String id;
+        private final CompletableFuture<?> lookup;
+        private final CompletableFuture<? extends Collection<String>> values;
+        private final long startedAt = System.nanoTime();
+
+        Pending(String id, CompletableFuture<?> lookup, CompletableFuture<? extends Collection<String>> values) {
+            this.id = id;
+            this.lookup = lookup;
+            this.values = values;
+        }
+    }
+}
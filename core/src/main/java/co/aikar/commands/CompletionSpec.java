@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import co.aikar.commands.CommandCompletionContext.ParsedConfig;
+import co.aikar.commands.CommandCompletions.AsyncCommandCompletionHandler;
+import co.aikar.commands.CommandCompletions.CommandCompletionHandler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The completion of a single argument, such as {@code @players|none} from a {@link co.aikar.commands.annotation.CommandCompletion},
+ * compiled once so completing doesn't parse it again on every keystroke.
+ */
+final class CompletionSpec {
+    final String source;
+    /**
+     * Whether the completion is left to the default completion of the parameter type.
+     */
+    final boolean isDefault;
+    final boolean repeat;
+    final Token[] tokens;
+    final int replacementsVersion;
+    private volatile Classification classification;
+
+    private CompletionSpec(String source, boolean repeat, Token[] tokens, int replacementsVersion) {
+        this.source = source;
+        this.isDefault = source.isEmpty() || "*".equals(source);
+        this.repeat = repeat;
+        this.tokens = tokens;
+        this.replacementsVersion = replacementsVersion;
+    }
+
+    static CompletionSpec compile(String source, CommandReplacements replacements) {
+        int version = replacements.getVersion();
+        boolean repeat = source.startsWith("repeat@");
+        String completion = replacements.replace(repeat ? source.substring(6) : source);
+
+        String[] values = ACFPatterns.PIPE.split(completion);
+        Token[] tokens = new Token[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tokens[i] = new Token(values[i]);
+        }
+        return new CompletionSpec(source, repeat, tokens, version);
+    }
+
+    /**
+     * Classifies the completion by the thread it may run on, once per snapshot of the registered handlers.
+     *
+     * @param handlers The current snapshot of the registered completion handlers.
+     * @return The tokens whose handlers may only run on the main thread, which is empty if the completion is async-safe.
+     */
+    Token[] getSyncTokens(Map<String, CommandCompletionHandler> handlers) {
+        Classification classification = this.classification;
+        if (classification == null || classification.handlers != handlers) {
+            List<Token> syncTokens = new ArrayList<>(0);
+            for (Token token : tokens) {
+                CommandCompletionHandler handler = token.getHandler(handlers);
+                if (handler != null && !(handler instanceof AsyncCommandCompletionHandler)) {
+                    syncTokens.add(token);
+                }
+            }
+            classification = new Classification(handlers, syncTokens.toArray(new Token[0]));
+            this.classification = classification;
+        }
+        return classification.syncTokens;
+    }
+
+    /**
+     * A value of the completion, either the id of a completion handler with its config, or a plain value.
+     */
+    static final class Token {
+        final String value;
+        final String id;
+        final String config;
+        final ParsedConfig parsedConfig;
+        private volatile Resolution resolution;
+
+        Token(String value) {
+            String[] complete = ACFPatterns.COLONEQUALS.split(value, 2);
+            this.value = value;
+            this.id = complete[0].toLowerCase();
+            this.config = complete.length == 1 ? null : complete[1];
+            // Shared by every completion of this token, so handlers get a read only view of it.
+            this.parsedConfig = ParsedConfig.parse(this.config, new HashMap<>()).unmodifiable();
+        }
+
+        /**
+         * @param handlers The current snapshot of the registered completion handlers.
+         * @return The handler of this token, or null if it is a plain value.
+         */
+        CommandCompletionHandler getHandler(Map<String, CommandCompletionHandler> handlers) {
+            Resolution resolution = this.resolution;
+            if (resolution == null || resolution.handlers != handlers) {
+                resolution = new Resolution(handlers, handlers.get(id));
+                this.resolution = resolution;
+            }
+            return resolution.handler;
+        }
+    }
+
+    private static final class Classification {
+        private final Map<String, CommandCompletionHandler> handlers;
+        private final Token[] syncTokens;
+
+        Classification(Map<String, CommandCompletionHandler> handlers, Token[] syncTokens) {
+            this.handlers = handlers;
+            this.syncTokens = syncTokens;
+        }
+    }
+
+    private static final class Resolution {
+        private final Map<String, CommandCompletionHandler> handlers;
+        private final CommandCompletionHandler handler;
+
+        Resolution(Map<String, CommandCompletionHandler> handlers, CommandCompletionHandler handler) {
+            this.handlers = handlers;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the completions that were still running when the deadline of a completion request expired, see
+ * {@link CommandManager#setCompletionDeadline(long, TimeUnit)}, to find the handlers that slow down tab completion.
+ * <p>
+ * Each completion is logged the first time it misses the deadline, and counted afterwards.
+ */
+public class CompletionTimings {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    void record(CommandManager manager, String id, long latencyNanos) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            Entry created = new Entry(id);
+            entry = entries.putIfAbsent(id, created);
+            if (entry == null) {
+                entry = created;
+                manager.log(LogLevel.INFO, "Completion " + id + " missed the completion deadline, still running after "
+                        + TimeUnit.NANOSECONDS.toMillis(latencyNanos) + "ms");
+            }
+        }
+        entry.timeouts.increment();
+        entry.maxLatency.accumulate(latencyNanos);
+        entry.lastLatency = latencyNanos;
+    }
+
+    /**
+     * @return The completions that missed the deadline, keyed by completion id.
+     */
+    public Map<String, Entry> getSlowCompletions() {
+        return Collections.unmodifiableMap(new HashMap<>(entries));
+    }
+
+    /**
+     * Forgets the recorded completions, such as after the slow handlers were fixed.
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    public static class Entry {
+        private final String id;
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAccumulator maxLatency = new LongAccumulator(Math::max, 0);
+        private volatile long lastLatency;
+
+        Entry(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return How many requests this completion was still running for when their deadline expired.
+         */
+        public long getTimeoutCount() {
+            return timeouts.sum();
+        }
+
+        /**
+         * @return How long this completion had been running when a deadline expired, at most.
+         */
+        public long getMaxLatency(TimeUnit unit) {
+            return unit.convert(maxLatency.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @return How long this completion had been running when the last deadline expired.
+         */
+        public long getLastLatency(TimeUnit unit) {
+            return unit.convert(lastLatency, TimeUnit.NANOSECONDS);
+        }
+    }
+}
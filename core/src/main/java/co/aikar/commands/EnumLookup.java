@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lookup tables of an enum class, built once per class, for completing and resolving its constants by name.
+ */
+final class EnumLookup {
+    private static final ClassValue<EnumLookup> LOOKUPS = new ClassValue<EnumLookup>() {
+        @Override
+        protected EnumLookup computeValue(Class<?> type) {
+            Object[] constants = type.getEnumConstants();
+            return new EnumLookup(constants != null ? (Enum<?>[]) constants : new Enum<?>[0]);
+        }
+    };
+
+    /**
+     * The names of the constants, in declaration order.
+     */
+    final List<String> names;
+    /**
+     * The names of the constants, indexed for completion.
+     */
+    final StaticCompletionHandler completions;
+    /**
+     * The constants by their {@link ACFUtil#simplifyString(String) simplified} name, the first declared one winning.
+     */
+    private final Map<String, Enum<?>> bySimpleName;
+
+    private EnumLookup(Enum<?>[] constants) {
+        String[] names = new String[constants.length];
+        Map<String, Enum<?>> bySimpleName = new HashMap<>();
+        for (int i = 0; i < constants.length; i++) {
+            names[i] = constants[i].name();
+            bySimpleName.putIfAbsent(ACFUtil.simplifyString(names[i]), constants[i]);
+        }
+        this.names = Collections.unmodifiableList(Arrays.asList(names));
+        this.completions = new StaticCompletionHandler(this.names);
+        this.bySimpleName = bySimpleName;
+    }
+
+    static EnumLookup of(Class<?> enumClass) {
+        return LOOKUPS.get(enumClass);
+    }
+
+    /**
+     * @return The constant whose simplified name equals the simplified item, or null.
+     */
+    Enum<?> simpleMatch(String item) {
+        return item != null ? bySimpleName.get(ACFUtil.simplifyString(item)) : null;
+    }
+
+    /**
+     * Pushes the names starting with the input of the sink into it.
+     */
+    void complete(CompletionSink sink) {
+        completions.complete(null, sink);
+    }
+}
@@ -23,6 +23,8 @@
 
 package co.aikar.commands;
 
+import com.google.common.collect.ImmutableSetMultimap;
+
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -38,7 +40,7 @@ public class ForwardingCommand extends BaseCommand {
         this.command = baseCommand;
         this.baseArgs = baseArgs;
         this.manager = baseCommand.manager;
-        this.subCommands.put(DEFAULT, regCommand);
+        this.subCommands = ImmutableSetMultimap.of(DEFAULT, regCommand);
     }
 
     @Override
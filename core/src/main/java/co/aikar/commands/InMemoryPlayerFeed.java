@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link PlayerFeed} whose players are joined and left by hand, standing in for a network backed feed in tests, or
+ * bridging one that pushes its updates.
+ */
+public class InMemoryPlayerFeed implements PlayerFeed {
+    private final Set<String> players = new LinkedHashSet<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    @Override
+    public synchronized void subscribe(Listener listener) {
+        listeners.add(listener);
+        for (String name : players) {
+            listener.playerJoined(name);
+        }
+    }
+
+    public synchronized void join(String name) {
+        if (players.add(name)) {
+            for (Listener listener : listeners) {
+                listener.playerJoined(name);
+            }
+        }
+    }
+
+    public synchronized void leave(String name) {
+        if (players.remove(name)) {
+            for (Listener listener : listeners) {
+                listener.playerLeft(name);
+            }
+        }
+    }
+
+    public synchronized Set<String> getPlayers() {
+        return new LinkedHashSet<>(players);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Invokes a command or handler method through a {@link MethodHandle} bound when the method is registered, avoiding
+ * the access checks and argument copying {@link Method#invoke(Object, Object...)} does on every call.
+ */
+final class MethodInvoker {
+    private final MethodHandle handle;
+
+    /**
+     * @param method An instance method that has already been made accessible.
+     */
+    MethodInvoker(Method method) {
+        try {
+            int parameterCount = method.getParameterCount();
+            this.handle = MethodHandles.lookup().unreflect(method)
+                    .asType(MethodType.genericMethodType(parameterCount + 1))
+                    .asSpreader(Object[].class, parameterCount);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Could not access " + method.getDeclaringClass().getName() + "#" + method.getName(), e);
+        }
+    }
+
+    /**
+     * Invokes the method on the target. Anything the method throws that isn't an {@link Exception} is wrapped in an
+     * {@link InvocationTargetException}, matching what reflective invocation would have thrown.
+     *
+     * @param target The instance to invoke the method on.
+     * @param args   The arguments, exactly one per parameter of the method.
+     * @return The value returned by the method, or null for void methods.
+     */
+    Object invoke(Object target, Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new InvocationTargetException(t);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The smallest sets of permission nodes that make a root command visible, so checking whether an issuer may use any of
+ * its subcommands is a handful of lookups rather than a walk over every child and subcommand.
+ * <p>
+ * Each subcommand is visible with the nodes of its child and its own, so those whose nodes include the nodes of
+ * another subcommand are left out. A root with a subcommand requiring no nodes at all is visible to everyone.
+ * <p>
+ * Children overriding {@link BaseCommand#hasPermission(CommandIssuer)} may grant more or less than their nodes, so
+ * they are still checked one by one.
+ */
+final class PermissionCover {
+    private static final PermissionCover UNRESTRICTED = new PermissionCover(true, new ArrayList<>(), new ArrayList<>(), null);
+
+    private final boolean unrestricted;
+    private final List<Set<String>> requirements;
+    /**
+     * The interned ids of each requirement, or null for those that couldn't be interned.
+     */
+    private final int[][] requirementIds;
+    /**
+     * The children overriding how their permissions are checked.
+     */
+    private final List<BaseCommand> checkedChildren;
+    private final String uniquePermission;
+
+    private PermissionCover(boolean unrestricted, List<Set<String>> requirements, List<BaseCommand> checkedChildren,
+                            String uniquePermission) {
+        this.unrestricted = unrestricted;
+        this.requirements = requirements;
+        this.requirementIds = new int[requirements.size()][];
+        this.checkedChildren = checkedChildren;
+        this.uniquePermission = uniquePermission;
+    }
+
+    static PermissionCover compute(RootCommand root) {
+        List<BaseCommand> children = root.getChildren();
+        if (children.isEmpty()) {
+            return UNRESTRICTED;
+        }
+
+        List<Set<String>> candidates = new ArrayList<>();
+        List<BaseCommand> checkedChildren = new ArrayList<>();
+        for (BaseCommand child : children) {
+            if (overridesHasPermission(child)) {
+                checkedChildren.add(child);
+                continue;
+            }
+            Set<String> childPermissions = child.getRequiredPermissions();
+            for (RegisteredCommand<?> command : child.getRegisteredCommands()) {
+                Set<String> required = new HashSet<>(childPermissions);
+                required.addAll(command.getRequiredPermissions());
+                required.remove("");
+                candidates.add(required);
+            }
+        }
+        candidates.sort(Comparator.comparingInt(Set::size));
+
+        List<Set<String>> requirements = new ArrayList<>();
+        for (Set<String> candidate : candidates) {
+            if (candidate.isEmpty()) {
+                return new PermissionCover(true, new ArrayList<>(), new ArrayList<>(), findUniquePermission(children));
+            }
+            boolean covered = false;
+            for (Set<String> requirement : requirements) {
+                if (candidate.containsAll(requirement)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                requirements.add(candidate);
+            }
+        }
+        PermissionCover cover = new PermissionCover(false, requirements, checkedChildren, findUniquePermission(children));
+        PermissionIndex index = root.getManager().permissionIndex;
+        for (int i = 0; i < requirements.size(); i++) {
+            cover.requirementIds[i] = index.parseAll(requirements.get(i));
+        }
+        return cover;
+    }
+
+    private static boolean overridesHasPermission(BaseCommand child) {
+        try {
+            return child.getClass().getMethod("hasPermission", CommandIssuer.class).getDeclaringClass() != BaseCommand.class;
+        } catch (NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    /**
+     * @see RootCommand#getUniquePermission()
+     */
+    private static String findUniquePermission(List<BaseCommand> children) {
+        Set<String> permissions = new HashSet<>();
+        for (BaseCommand child : children) {
+            for (RegisteredCommand<?> value : child.subCommands.values()) {
+                Set<String> requiredPermissions = value.getRequiredPermissions();
+                if (requiredPermissions.isEmpty()) {
+                    return null;
+                } else {
+                    permissions.addAll(requiredPermissions);
+                }
+            }
+        }
+        return permissions.size() == 1 ? permissions.iterator().next() : null;
+    }
+
+    /**
+     * @return Whether the issuer has every node of any of the requirements.
+     */
+    boolean test(CommandManager manager, CommandIssuer issuer) {
+        if (unrestricted) {
+            return true;
+        }
+        for (int i = 0; i < requirementIds.length; i++) {
+            int[] ids = requirementIds[i];
+            if (ids != null && !manager.permissionChecksOverridden
+                    ? manager.hasPermissions(issuer, ids) : manager.hasPermission(issuer, requirements.get(i))) {
+                return true;
+            }
+        }
+        for (BaseCommand child : checkedChildren) {
+            if (!child.hasPermission(issuer)) {
+                continue;
+            }
+            for (RegisteredCommand value : child.getRegisteredCommands()) {
+                if (value.hasPermission(issuer)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    String getUniquePermission() {
+        return uniquePermission;
+    }
+}
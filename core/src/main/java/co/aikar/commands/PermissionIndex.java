@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the permission nodes checked through a manager to small ids, so the nodes an issuer was granted can be kept
+ * as the bits of a {@link PermissionSnapshots snapshot}, and splits each permission on commas once rather than on every
+ * check.
+ * <p>
+ * Commands only ever require a bounded set of nodes, but permissions can be built at runtime, so past
+ * {@link #MAX_NODES} nodes further permissions aren't interned and are checked directly instead.
+ */
+final class PermissionIndex {
+    static final int MAX_NODES = 8192;
+    private static final int[] NO_IDS = new int[0];
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<String, int[]> parsed = new ConcurrentHashMap<>();
+    /**
+     * The nodes by id. Written before the id is published through {@link #ids}, so any id read from it can be resolved.
+     */
+    private volatile String[] nodes = new String[64];
+    private int size;
+
+    /**
+     * @return The id of the node, or -1 if the index is full.
+     */
+    int intern(String node) {
+        Integer id = ids.get(node);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(node);
+            if (id != null) {
+                return id;
+            }
+            if (size >= MAX_NODES) {
+                return -1;
+            }
+            String[] nodes = this.nodes;
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            nodes[size] = node;
+            this.nodes = nodes;
+            ids.put(node, size);
+            return size++;
+        }
+    }
+
+    String getNode(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @return The ids of the comma separated nodes of the permission, or null if they can't all be interned.
+     */
+    int[] parse(String permission) {
+        if (permission == null || permission.isEmpty()) {
+            return NO_IDS;
+        }
+        int[] result = parsed.get(permission);
+        if (result != null) {
+            return result;
+        }
+        String[] split = ACFPatterns.COMMA.split(permission);
+        int[] nodeIds = new int[split.length];
+        int count = 0;
+        for (String node : split) {
+            if (node.isEmpty()) {
+                continue;
+            }
+            int id = intern(node);
+            if (id < 0) {
+                return null;
+            }
+            nodeIds[count++] = id;
+        }
+        result = count == nodeIds.length ? nodeIds : Arrays.copyOf(nodeIds, count);
+        if (parsed.size() < MAX_NODES) {
+            parsed.put(permission, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return The ids of every node of the permissions, or null if they can't all be interned.
+     */
+    int[] parseAll(Collection<String> permissions) {
+        if (permissions.size() == 1) {
+            return parse(permissions.iterator().next());
+        }
+        int[] result = NO_IDS;
+        for (String permission : permissions) {
+            int[] nodeIds = parse(permission);
+            if (nodeIds == null) {
+                return null;
+            }
+            if (nodeIds.length == 0) {
+                continue;
+            }
+            int offset = result.length;
+            result = Arrays.copyOf(result, offset + nodeIds.length);
+            System.arraycopy(nodeIds, 0, result, offset, nodeIds.length);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Remembers which permission nodes each issuer was granted, as bits over the ids of a {@link PermissionIndex}, so
+ * repeated checks while dispatching, completing or sending the command tree don't ask the permission provider again.
+ * <p>
+ * Nodes are looked up lazily, all those missing from a check at once through {@link CommandIssuer#hasPermissions}, and a
+ * snapshot is only kept for a short time, bounding how long a permission change goes unnoticed unless the issuer is
+ * {@link #invalidate(CommandIssuer) invalidated} right away.
+ */
+final class PermissionSnapshots {
+
+    /**
+     * Keyed by the platform issuer, which is held weakly so players that left are dropped.
+     */
+    private final Map<Object, Snapshot> snapshots = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @return The snapshot of the issuer, replaced by an empty one if it is older than the ttl.
+     */
+    Snapshot get(CommandIssuer issuer, long ttlNanos) {
+        Object key = issuer.getIssuer();
+        if (key == null) {
+            return new Snapshot(System.nanoTime());
+        }
+        long now = System.nanoTime();
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null || now - snapshot.createdAt > ttlNanos) {
+            snapshot = new Snapshot(now);
+            snapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    void invalidate(CommandIssuer issuer) {
+        Object key = issuer.getIssuer();
+        if (key != null) {
+            snapshots.remove(key);
+        }
+    }
+
+    void invalidateAll() {
+        snapshots.clear();
+    }
+
+    static final class Snapshot {
+        private final long createdAt;
+        private final BitSet known = new BitSet();
+        private final BitSet granted = new BitSet();
+
+        private Snapshot(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        /**
+         * @return Whether the issuer was granted every node.
+         */
+        synchronized boolean hasAll(CommandIssuer issuer, PermissionIndex index, int[] ids) {
+            resolve(issuer, index, ids);
+            for (int id : ids) {
+                if (!granted.get(id)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The positions in ids of the nodes the issuer was granted.
+         */
+        synchronized BitSet getGranted(CommandIssuer issuer, PermissionIndex index, int[] ids) {
+            resolve(issuer, index, ids);
+            BitSet result = new BitSet(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                if (granted.get(ids[i])) {
+                    result.set(i);
+                }
+            }
+            return result;
+        }
+
+        private void resolve(CommandIssuer issuer, PermissionIndex index, int[] ids) {
+            int missing = 0;
+            for (int id : ids) {
+                if (!known.get(id)) {
+                    missing++;
+                }
+            }
+            if (missing == 0) {
+                return;
+            }
+            int[] missingIds = new int[missing];
+            String[] nodes = new String[missing];
+            missing = 0;
+            for (int id : ids) {
+                if (!known.get(id)) {
+                    missingIds[missing] = id;
+                    nodes[missing++] = index.getNode(id);
+                }
+            }
+            boolean[] results = issuer.hasPermissions(nodes);
+            for (int i = 0; i < missingIds.length; i++) {
+                known.set(missingIds[i]);
+                granted.set(missingIds[i], results[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The players of a proxy network sorted by their lowercase name, so completing and resolving player names doesn't scan
+ * every player.
+ * <p>
+ * Players connected to this proxy are added and removed by the platform as they log in and disconnect. Players on
+ * other proxies are fed in by {@link PlayerFeed}s, and are only known by name: they are completed, but can't be
+ * resolved into a player.
+ *
+ * @param <P> The player type of the platform.
+ */
+public class PlayerDirectory<P> {
+    private final ConcurrentNavigableMap<String, Entry<P>> entries = new ConcurrentSkipListMap<>();
+    private final PlayerFeed.Listener remoteListener = new PlayerFeed.Listener() {
+        @Override
+        public void playerJoined(String name) {
+            addRemote(name);
+        }
+
+        @Override
+        public void playerLeft(String name) {
+            removeRemote(name);
+        }
+    };
+
+    /**
+     * Adds a player connected to this proxy.
+     */
+    public synchronized void addPlayer(String name, P player) {
+        String key = key(name);
+        Entry<P> entry = entries.get(key);
+        entries.put(key, new Entry<>(name, player, entry != null ? entry.remote : 0));
+    }
+
+    /**
+     * Removes a player connected to this proxy, unless another player with the name replaced it already.
+     */
+    public synchronized void removePlayer(String name, P player) {
+        String key = key(name);
+        Entry<P> entry = entries.get(key);
+        if (entry != null && entry.player == player) {
+            update(key, entry.name, null, entry.remote);
+        }
+    }
+
+    /**
+     * Starts including the players of the feed.
+     */
+    public void addFeed(PlayerFeed feed) {
+        feed.subscribe(remoteListener);
+    }
+
+    private synchronized void addRemote(String name) {
+        String key = key(name);
+        Entry<P> entry = entries.get(key);
+        update(key, entry != null ? entry.name : name, entry != null ? entry.player : null, entry != null ? entry.remote + 1 : 1);
+    }
+
+    private synchronized void removeRemote(String name) {
+        String key = key(name);
+        Entry<P> entry = entries.get(key);
+        if (entry != null && entry.remote > 0) {
+            update(key, entry.name, entry.player, entry.remote - 1);
+        }
+    }
+
+    private void update(String key, String name, P player, int remote) {
+        if (player == null && remote == 0) {
+            entries.remove(key);
+        } else {
+            entries.put(key, new Entry<>(name, player, remote));
+        }
+    }
+
+    /**
+     * Pushes the names of the players starting with the prefix into the sink, in case insensitive order.
+     *
+     * @param prefix The input being completed.
+     * @param sink   The sink collecting the names.
+     */
+    public void complete(String prefix, CompletionSink sink) {
+        String start = key(prefix != null ? prefix : "");
+        for (Map.Entry<String, Entry<P>> entry : entries.tailMap(start, true).entrySet()) {
+            if (!entry.getKey().startsWith(start) || !sink.add(entry.getValue().name)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return The player connected to this proxy with exactly the name ignoring case, or null if there is none.
+     */
+    public P getPlayer(String name) {
+        Entry<P> entry = entries.get(key(name));
+        return entry != null ? entry.player : null;
+    }
+
+    /**
+     * Matches the players connected to this proxy like the proxies do: the player with exactly the name, else all
+     * players whose name starts with it, ignoring case.
+     *
+     * @return A mutable list of the matched players.
+     */
+    public List<P> matchPlayer(String name) {
+        String start = key(name);
+        List<P> matches = new ArrayList<>();
+        P exact = getPlayer(name);
+        if (exact != null) {
+            matches.add(exact);
+            return matches;
+        }
+        for (Map.Entry<String, Entry<P>> entry : entries.tailMap(start, true).entrySet()) {
+            if (!entry.getKey().startsWith(start)) {
+                break;
+            }
+            if (entry.getValue().player != null) {
+                matches.add(entry.getValue().player);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return How many players are known, on this proxy and fed in.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static final class Entry<P> {
+        private final String name;
+        private final P player;
+        /**
+         * How many feeds reported the player, as a player moving between proxies may briefly be on both.
+         */
+        private final int remote;
+
+        Entry(String name, P player, int remote) {
+            this.name = name;
+            this.player = player;
+            this.remote = remote;
+        }
+    }
+}
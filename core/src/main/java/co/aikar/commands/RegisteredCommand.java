@@ -34,6 +34,7 @@ import co.aikar.commands.annotation.Private;
 import co.aikar.commands.annotation.Syntax;
 import co.aikar.commands.config.impl.MessageConfig;
 import co.aikar.commands.contexts.ContextResolver;
+import com.google.common.primitives.Primitives;
 import lombok.Getter;
 import org.jetbrains.annotations.Nullable;
 
@@ -44,17 +45,19 @@ import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @SuppressWarnings("WeakerAccess")
 public class RegisteredCommand<CEC extends CommandExecutionContext<? extends CommandIssuer>> {
@@ -76,9 +79,24 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
     public String helpText;
     public String permission;
     public String complete;
+    /**
+     * The completions of {@link #complete}, compiled per argument on first use.
+     */
+    private volatile CompletionSpec[] completionSpecs;
+    private volatile String completionSpecsSource;
     public String conditions;
     public boolean isPrivate;
     public boolean isAsync;
+    /**
+     * The name of the executor to run on if {@link #isAsync}, or null for the default async executor of the manager.
+     */
+    public String asyncExecutor;
+    private final MethodInvoker invoker;
+    private final Map<String, Integer> parameterIndexes = new HashMap<>();
+    /**
+     * The positions of the parameters able to hold an instance of a given class, filled as they are looked up.
+     */
+    private final Map<Class<?>, int[]> parameterIndexesByClass = new ConcurrentHashMap<>();
 
     RegisteredCommand(BaseCommand scope, String command, Method method, String prefSubCommand) {
         this.scope = scope;
@@ -92,10 +110,12 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
 
         this.command = command + (!annotations.hasAnnotation(method, CommandAlias.class, false) && !prefSubCommand.isEmpty() ? prefSubCommand : "");
         this.method = method;
+        this.invoker = new MethodInvoker(method);
         this.prefSubCommand = prefSubCommand;
 
         this.permission = annotations.getAnnotationValue(method, CommandPermission.class, Annotations.REPLACEMENTS | Annotations.NO_EMPTY);
         this.complete = annotations.getAnnotationValue(method, CommandCompletion.class, Annotations.REPLACEMENTS | Annotations.DEFAULT_EMPTY);
+        getCompletionSpecs(this.manager.getCommandCompletions());
         this.helpText = annotations.getAnnotationValue(method, Description.class, Annotations.REPLACEMENTS | Annotations.DEFAULT_EMPTY);
         this.conditions = annotations.getAnnotationValue(method, Conditions.class, Annotations.REPLACEMENTS | Annotations.NO_EMPTY);
         this.helpSearchTags = annotations.getAnnotationValue(method, HelpSearchTags.class, Annotations.REPLACEMENTS | Annotations.NO_EMPTY);
@@ -107,6 +127,10 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
 
         this.isPrivate = annotations.hasAnnotation(method, Private.class) || annotations.getAnnotationFromClass(scope.getClass(), Private.class) != null;
         this.isAsync = annotations.hasAnnotation(method, Async.class) || annotations.hasAnnotation(scope.getClass(), Async.class);
+        this.asyncExecutor = annotations.getAnnotationValue(method, Async.class, Annotations.REPLACEMENTS | Annotations.NO_EMPTY);
+        if (this.asyncExecutor == null) {
+            this.asyncExecutor = annotations.getAnnotationValue(scope.getClass(), Async.class, Annotations.REPLACEMENTS | Annotations.NO_EMPTY);
+        }
 
         int requiredResolvers = 0;
         int consumeInputResolvers = 0;
@@ -116,6 +140,7 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
         CommandParameter<CEC> previousParam = null;
         for (int i = 0; i < parameters.length; i++) {
             CommandParameter<CEC> parameter = this.parameters[i] = new CommandParameter<>(this, parameters[i], i, i == parameters.length - 1);
+            this.parameterIndexes.put(parameter.getName(), i);
             if (previousParam != null) {
                 previousParam.setNextParam(parameter);
             }
@@ -147,41 +172,27 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
             this.manager.getCommandConditions().validateConditions(context);
 
             if (isAsync) {
-                CompletableFuture.supplyAsync(() -> resolveContexts(sender, args)).whenCompleteAsync(((passedArgs, exception) -> {
-                    if (exception != null) {
-                        handleException(sender, args, exception);
-                        return;
-                    }
-
-                    if (passedArgs == null) return;
-
-                    try {
-                        Object obj = method.invoke(scope, passedArgs.values().toArray());
-
-                        if (obj instanceof CompletionStage<?>) {
-                            CompletionStage<?> future = (CompletionStage<?>) obj;
-                            future.exceptionally(t -> {
+                try {
+                    this.manager.getAsyncExecutor(asyncExecutor).execute(new CommandBulkhead.RejectableTask() {
+                        @Override
+                        public void run() {
+                            try {
+                                resolveAndInvoke(sender, args);
+                            } catch (Throwable t) {
                                 handleException(sender, args, t);
-                                return null;
-                            });
+                            }
                         }
-                    } catch (Exception e) {
-                        handleException(sender, args, e);
-                    }
-                }));
-            } else {
-                Map<String, Object> passedArgs = resolveContexts(sender, args);
-                if (passedArgs == null) return;
 
-                Object obj = method.invoke(scope, passedArgs.values().toArray());
-
-                if (obj instanceof CompletionStage<?>) {
-                    CompletionStage<?> future = (CompletionStage<?>) obj;
-                    future.exceptionally(t -> {
-                        handleException(sender, args, t);
-                        return null;
+                        @Override
+                        public void rejected(RejectedExecutionException e) {
+                            sender.sendError(MessageConfig.IMP.ERROR.COMMAND_BUSY);
+                        }
                     });
+                } catch (RejectedExecutionException e) {
+                    sender.sendError(MessageConfig.IMP.ERROR.COMMAND_BUSY);
                 }
+            } else {
+                resolveAndInvoke(sender, args);
             }
         } catch (Exception e) {
             handleException(sender, args, e);
@@ -190,6 +201,21 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
         }
     }
 
+    private void resolveAndInvoke(CommandIssuer sender, List<String> args) throws Exception {
+        ResolvedArgs resolved = resolveContexts(sender, args);
+        if (resolved == null) return;
+
+        Object obj = invoker.invoke(scope, resolved.getArguments());
+
+        if (obj instanceof CompletionStage<?>) {
+            CompletionStage<?> future = (CompletionStage<?>) obj;
+            future.exceptionally(t -> {
+                handleException(sender, args, t);
+                return null;
+            });
+        }
+    }
+
     public void preCommand() {
     }
 
@@ -234,29 +260,34 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
     }
 
     @Nullable
-    Map<String, Object> resolveContexts(CommandIssuer sender, List<String> args) throws InvalidCommandArgument {
+    ResolvedArgs resolveContexts(CommandIssuer sender, List<String> args) throws InvalidCommandArgument {
         return resolveContexts(sender, args, null);
     }
 
     @Nullable
-    Map<String, Object> resolveContexts(CommandIssuer sender, List<String> args, String name) throws InvalidCommandArgument {
-        args = new ArrayList<>(args);
-
+    ResolvedArgs resolveContexts(CommandIssuer sender, List<String> args, String name) throws InvalidCommandArgument {
         String[] origArgs = args.toArray(new String[0]);
+        args = new ArgumentCursor(origArgs);
 
-        Map<String, Object> passedArgs = new LinkedHashMap<>();
+        ResolvedArgs passedArgs = new ResolvedArgs(this);
         int remainingRequired = requiredResolvers;
+        int nameIndex = name != null ? getParameterIndex(name) : -1;
 
-        CommandOperationContext opContext = CommandManager.getCurrentCommandOperationContext();
-        for (int i = 0; i < parameters.length && (name == null || !passedArgs.containsKey(name)); i++) {
+        CommandOperationContext opContext = CommandOperationStack.get().peek();
+        // A single context is created and moved along the parameters as they are resolved.
+        CEC context = null;
+        for (int i = 0; i < parameters.length && (name == null || nameIndex >= i); i++) {
             boolean isLast = i == parameters.length - 1;
             boolean allowOptional = remainingRequired == 0;
             final CommandParameter<CEC> parameter = parameters[i];
-            final String parameterName = parameter.getName();
             final Class<?> type = parameter.getType();
             final ContextResolver<?, CEC> resolver = parameter.getResolver();
-            //noinspection unchecked
-            CEC context = (CEC) this.manager.createCommandContext(this, parameter, sender, args, i, passedArgs);
+            if (context == null) {
+                //noinspection unchecked
+                context = (CEC) this.manager.createCommandContext(this, parameter, sender, args, i, passedArgs);
+            } else {
+                context.setParameter(parameter, i);
+            }
             boolean requiresInput = parameter.requiresInput();
             if (requiresInput && remainingRequired > 0) {
                 remainingRequired--;
@@ -279,7 +310,7 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
                     }
                     //noinspection unchecked
                     this.manager.getCommandConditions().validateConditions(context, value);
-                    passedArgs.put(parameterName, value);
+                    passedArgs.set(i, value);
                     continue;
                 } else if (requiresInput) {
                     scope.showSyntax(sender, this);
@@ -320,11 +351,31 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
 
             //noinspection unchecked
             this.manager.getCommandConditions().validateConditions(context, paramValue);
-            passedArgs.put(parameterName, paramValue);
+            passedArgs.set(i, paramValue);
         }
         return passedArgs;
     }
 
+    /**
+     * Gets the position of the parameter with the given name, or -1 if there is none.
+     */
+    int getParameterIndex(String name) {
+        return parameterIndexes.getOrDefault(name, -1);
+    }
+
+    /**
+     * Gets the positions of the parameters whose type could hold an instance of the class, in order.
+     */
+    int[] getParameterIndexes(Class<?> clazz) {
+        return parameterIndexesByClass.computeIfAbsent(clazz, cls -> {
+            Class<?> wrapped = Primitives.wrap(cls);
+            return IntStream.range(0, parameters.length).filter(i -> {
+                Class<?> type = Primitives.wrap(parameters[i].getType());
+                return wrapped.isAssignableFrom(type) || type.isAssignableFrom(wrapped);
+            }).toArray();
+        });
+    }
+
     boolean hasPermission(CommandIssuer issuer) {
         return this.manager.hasPermission(issuer, getRequiredPermissions());
     }
@@ -341,6 +392,25 @@ public class RegisteredCommand<CEC extends CommandExecutionContext<? extends Com
         return this.permission.split(",")[0];
     }
 
+    /**
+     * @return The compiled completion of each argument, recompiled if {@link #complete} was changed.
+     */
+    CompletionSpec[] getCompletionSpecs(CommandCompletions<?> completions) {
+        CompletionSpec[] specs = this.completionSpecs;
+        String complete = this.complete;
+        if (specs == null || !complete.equals(this.completionSpecsSource)
+                || specs[0].replacementsVersion != this.manager.getCommandReplacements().getVersion()) {
+            String[] split = ACFPatterns.SPACE.split(complete);
+            specs = new CompletionSpec[split.length];
+            for (int i = 0; i < split.length; i++) {
+                specs[i] = completions.compile(split[i]);
+            }
+            this.completionSpecs = specs;
+            this.completionSpecsSource = complete;
+        }
+        return specs;
+    }
+
     void computePermissions() {
         this.permissions.clear();
         this.permissions.addAll(this.scope.getRequiredPermissions());
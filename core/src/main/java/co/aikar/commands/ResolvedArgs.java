@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The values resolved for the parameters of a {@link RegisteredCommand}, stored by parameter position so the array can
+ * be passed straight to the command method once every parameter is resolved.
+ * <p>
+ * Parameters are resolved in order, so the resolved ones are always the first {@link #size()} positions. This also
+ * acts as a read only map of the resolved values by parameter name, for the context and completion APIs exposing them
+ * as such.
+ */
+class ResolvedArgs extends AbstractMap<String, Object> {
+    private final RegisteredCommand<?> command;
+    private final Object[] values;
+    private int resolved;
+
+    ResolvedArgs(RegisteredCommand<?> command) {
+        this.command = command;
+        this.values = new Object[command.parameters.length];
+    }
+
+    void set(int index, Object value) {
+        values[index] = value;
+        resolved = index + 1;
+    }
+
+    /**
+     * Gets the arguments to invoke the command method with.
+     * <p>
+     * This is the backing array, not a copy.
+     */
+    Object[] getArguments() {
+        return values;
+    }
+
+    /**
+     * Gets the first resolved value that is an instance of one of the classes, trying each class in turn.
+     * <p>
+     * The parameters whose declared type relates to the class are looked at first. A value may still implement the
+     * class while its parameter is declared as an unrelated type, so every resolved value is checked if none of those
+     * matched.
+     */
+    Object findInstance(Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            for (int index : command.getParameterIndexes(clazz)) {
+                if (index < resolved && clazz.isInstance(values[index])) {
+                    return values[index];
+                }
+            }
+            for (int index = 0; index < resolved; index++) {
+                if (clazz.isInstance(values[index])) {
+                    return values[index];
+                }
+            }
+        }
+        return null;
+    }
+
+    private int indexOf(Object name) {
+        int index = name instanceof String ? command.getParameterIndex((String) name) : -1;
+        return index < resolved ? index : -1;
+    }
+
+    @Override
+    public int size() {
+        return resolved;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index != -1 ? values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < resolved;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = index++;
+                        return new SimpleImmutableEntry<>(command.parameters[i].getName(), values[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return resolved;
+            }
+        };
+    }
+}
@@ -28,9 +28,8 @@ import co.aikar.commands.CommandRouter.RouteSearch;
 import com.google.common.collect.SetMultimap;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public interface RootCommand {
     void addChild(BaseCommand command);
@@ -49,43 +48,24 @@ public interface RootCommand {
         });
 
         children.add(command);
+        getManager().getRouter().reindex(this);
     }
 
     /**
      * @return If this root command can be summarized to a single required permission node to use it, returns that value. If any RegisteredCommand is permission-less, or has multiple required permission nodes, null is returned.
      */
     default String getUniquePermission() {
-        Set<String> permissions = new HashSet<>();
-        for (BaseCommand child : getChildren()) {
-            for (RegisteredCommand<?> value : child.subCommands.values()) {
-                Set<String> requiredPermissions = value.getRequiredPermissions();
-                if (requiredPermissions.isEmpty()) {
-                    return null;
-                } else {
-                    permissions.addAll(requiredPermissions);
-                }
-            }
-        }
-        return permissions.size() == 1 ? permissions.iterator().next() : null;
+        CommandManager manager = getManager();
+        return manager.getRouter().getRouteIndex(this).getPermissionCover(this).getUniquePermission();
     }
 
+    /**
+     * Checks the issuer against the smallest sets of permission nodes granting any of the subcommands, which are
+     * computed once the subcommands of this root changed.
+     */
     default boolean hasAnyPermission(CommandIssuer issuer) {
-        List<BaseCommand> children = getChildren();
-        if (children.isEmpty()) {
-            return true;
-        }
-
-        for (BaseCommand child : children) {
-            if (!child.hasPermission(issuer)) {
-                continue;
-            }
-            for (RegisteredCommand value : child.getRegisteredCommands()) {
-                if (value.hasPermission(issuer)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        CommandManager manager = getManager();
+        return manager.getRouter().getRouteIndex(this).getPermissionCover(this).test(manager, issuer);
     }
 
     default BaseCommand execute(CommandIssuer sender, String commandLabel, String[] args) {
@@ -118,18 +98,66 @@ public interface RootCommand {
         return getTabCompletions(sender, alias, args, commandsOnly, false);
     }
 
+    /**
+     * Gets the completions of the input right away, leaving out those of lookups that are still running, see
+     * {@link #getTabCompletionsAsync(CommandIssuer, String, String[], boolean, boolean)} to wait for them.
+     */
     default List<String> getTabCompletions(CommandIssuer sender, String alias, String[] args, boolean commandsOnly, boolean isAsync) {
-        Set<String> completions = new HashSet<>();
-        getChildren().forEach(child -> {
-            if (!commandsOnly) {
-                completions.addAll(child.tabComplete(sender, this, args, isAsync));
+        CompletionSink sink = new CompletionSink(args.length > 0 ? args[args.length - 1] : "", getManager().getCompletionLimit());
+        return sink.completeNow(getTabCompletions(sender, args, commandsOnly, isAsync, sink));
+    }
+
+    /**
+     * Gets the completions of the input without blocking on completions that are still being looked up, see
+     * {@link CommandCompletions#registerFutureCompletion(String, CommandCompletions.FutureCompletionHandler)}.
+     * <p>
+     * Handlers that aren't future based run right away, on the calling thread.
+     *
+     * @return A future completed with the completions once all of the lookups are done.
+     */
+    default CompletableFuture<List<String>> getTabCompletionsAsync(CommandIssuer sender, String alias, String[] args, boolean commandsOnly, boolean isAsync) {
+        CompletionSink sink = new CompletionSink(args.length > 0 ? args[args.length - 1] : "", getManager().getCompletionLimit());
+        return getTabCompletions(sender, args, commandsOnly, isAsync, sink);
+    }
+
+    /**
+     * Pushes the completions of all of the children into a single sink, routing the input once over their merged
+     * subcommands and stopping once the sink is full.
+     *
+     * @return A future completed with the values of the sink once the completions still being looked up are added.
+     */
+    default CompletableFuture<List<String>> getTabCompletions(CommandIssuer sender, String[] args, boolean commandsOnly, boolean isAsync, CompletionSink sink) {
+        CommandManager manager = getManager();
+        sink.startDeadline(manager);
+        CompletionMemo memo = manager.isCompletionNarrowing() ? manager.completionMemo : null;
+        if (memo != null) {
+            List<String> narrowed = memo.narrow(manager, sender, this, args, commandsOnly);
+            if (narrowed != null) {
+                sink.addAll(narrowed);
+                return sink.toFuture();
             }
-            completions.addAll(child.getCommandsForCompletion(sender, args));
+        }
+
+        int start = sink.size();
+        if (!commandsOnly) {
+            BaseCommand.completeArguments(manager, sender, this, args, isAsync, sink);
+            if (sink.isSyncRequired()) {
+                return sink.toFuture();
+            }
+        }
+        manager.getRouter().getCommandsForCompletion(this, sender, args, sink);
+
+        if (memo == null) {
+            return sink.toFuture();
+        }
+        return sink.toFuture().thenApply(values -> {
+            if (!sink.isFull() && !sink.isExpired()) {
+                memo.remember(manager, sender, this, args, commandsOnly, new ArrayList<>(values.subList(start, values.size())));
+            }
+            return values;
         });
-        return new ArrayList<>(completions);
     }
 
-
     default RegisteredCommand getDefaultRegisteredCommand() {
         BaseCommand defCommand = this.getDefCommand();
         if (defCommand != null) {
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2016-2026 Daniel Ennis (Aikar) - MIT License
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining
+ *  a copy of this software and associated documentation files (the
+ *  "Software"), to deal in the Software without restriction, including
+ *  without limitation the rights to use, copy, modify, merge, publish,
+ *  distribute, sublicense, and/or sell copies of the Software, and to
+ *  permit persons to whom the Software is furnished to do so, subject to
+ *  the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *  MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ *  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ *  OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ *  WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package co.aikar.commands;
+
+import co.aikar.commands.CommandCompletions.AsyncCompletionSinkHandler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Handler for completions registered with {@link CommandCompletions#registerStaticCompletion(String, Collection)}.
+ * <p>
+ * The values are indexed by their lower case form, so the values starting with the input being completed are found by
+ * a binary search, instead of scanning the whole list on every keystroke. They are still completed in the order they
+ * were registered in.
+ */
+final class StaticCompletionHandler implements AsyncCompletionSinkHandler<CommandCompletionContext> {
+
+    private final List<String> all;
+    private final String[] keys;
+    /**
+     * The position each key was registered at, to complete the values starting with the input in that order.
+     */
+    private final int[] positions;
+    /**
+     * Whether values can be looked up by the input alone. Values spanning multiple words are matched against all of
+     * the arguments instead, and some characters don't keep their length when lower cased.
+     */
+    private final boolean indexed;
+    /**
+     * The words of each value, split ahead of time if any value spans multiple words.
+     */
+    private final String[][] words;
+
+    StaticCompletionHandler(Collection<String> completions) {
+        String[] values = completions.toArray(new String[0]);
+        boolean indexed = true;
+        for (String value : values) {
+            if (value == null || value.indexOf(' ') != -1 || fold(value).length() != value.length()) {
+                indexed = false;
+                break;
+            }
+        }
+        this.all = Collections.unmodifiableList(Arrays.asList(values.clone()));
+        this.indexed = indexed;
+        String[][] words = null;
+        for (String value : values) {
+            if (value != null && value.indexOf(' ') != -1) {
+                words = new String[values.length][];
+                for (int i = 0; i < values.length; i++) {
+                    words[i] = values[i] != null ? values[i].split(" ") : null;
+                }
+                break;
+            }
+        }
+        this.words = words;
+        if (!indexed) {
+            this.keys = null;
+            this.positions = null;
+            return;
+        }
+
+        Integer[] order = new Integer[values.length];
+        String[] folded = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            order[i] = i;
+            folded[i] = fold(values[i]);
+        }
+        Arrays.sort(order, (a, b) -> folded[a].compareTo(folded[b]));
+        this.keys = new String[order.length];
+        this.positions = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.keys[i] = folded[order[i]];
+            this.positions[i] = order[i];
+        }
+    }
+
+    @Override
+    public void complete(CommandCompletionContext context, CompletionSink sink) {
+        String prefix = sink.getPrefix();
+        sink.addAll(prefix.isEmpty() ? all : startingWith(prefix));
+    }
+
+    /**
+     * Returns all of the values, as the input of the context isn't necessarily the argument being completed, such as
+     * when checking the values of a parameter.
+     */
+    @Override
+    public Collection<String> getCompletions(CommandCompletionContext context) {
+        return all;
+    }
+
+    /**
+     * Completes an argument consuming the rest of the input, where values spanning multiple words are matched against
+     * all of the arguments and trimmed to the argument being completed.
+     */
+    void completeWords(String[] args, CompletionSink sink) {
+        if (words == null) {
+            sink.addAll(all);
+            return;
+        }
+        String start = String.join(" ", args);
+        for (int i = 0; i < words.length; i++) {
+            if (!sink.add(CommandCompletions.trimWords(all.get(i), words[i], start, args.length))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The values starting with the prefix, ignoring case, in the order they were registered in.
+     */
+    List<String> startingWith(String prefix) {
+        if (!indexed) {
+            return all;
+        }
+        prefix = fold(prefix);
+        int start = lowerBound(prefix);
+        int end = start;
+        while (end < keys.length && keys[end].startsWith(prefix)) {
+            end++;
+        }
+        if (end - start == keys.length) {
+            return all;
+        }
+        int[] matched = Arrays.copyOfRange(positions, start, end);
+        Arrays.sort(matched);
+        List<String> result = new ArrayList<>(matched.length);
+        for (int position : matched) {
+            result.add(all.get(position));
+        }
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String fold(String value) {
+        return value.toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -29,9 +29,14 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
- * Marks a command to not be included in stuff like tab completion and help pages
+ * Marks a command to be executed off of the thread it was issued on, including the resolution of its parameters.
+ * <p>
+ * The value may name an executor or bulkhead registered with
+ * {@link co.aikar.commands.CommandManager#registerAsyncExecutor(String, java.util.concurrent.Executor)} to run on,
+ * otherwise the default async executor of the manager is used.
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.METHOD, ElementType.TYPE, ElementType.ANNOTATION_TYPE})
 public @interface Async {
+    String value() default "";
 }
@@ -58,6 +58,7 @@ public class MessageConfig extends ConfigUtil {
         public String UNKNOWN_COMMAND = "&cUnknown Command, please type &e/help";
         public String INVALID_SYNTAX = "&fUsage: &c<command> &f<syntax>";
         public String ERROR_PERFORMING_COMMAND = "&cI'm sorry, but there was an error performing this command.";
+        public String COMMAND_BUSY = "&cThis command is busy right now, please try again in a moment.";
         public String PLEASE_SPECIFY_ONE_OF = "&cPlease specify one of (<valid>).";
         public String MUST_BE_A_NUMBER = "&c<num> &cmust be a number.";
         public String LENGTH_TOO_LARGE = "&cMust be at least &f<min> &ccharacters long.";
@@ -30,8 +30,14 @@ import org.bukkit.event.Listener;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 class PaperAsyncTabCompleteHandler implements Listener {
+    /**
+     * How long lookups still running are waited on when the manager has no completion deadline.
+     */
+    private static final long DEFAULT_WAIT_MILLIS = 500;
+
     private final PaperCommandManager manager;
 
     PaperAsyncTabCompleteHandler(PaperCommandManager manager) {
@@ -45,22 +51,15 @@ class PaperAsyncTabCompleteHandler implements Listener {
         if ((!event.isCommand() && !buffer.startsWith("/")) || buffer.indexOf(' ') == -1) {
             return;
         }
-        try {
-            //noinspection ConstantConditions,ConstantIfStatement
-            if (false) throw new CommandCompletions.SyncCompletionRequired(); // fake compiler due to SneakyThrows
-            List<String> completions = getCompletions(buffer, event.getCompletions(), event.getSender(), true);
-            if (completions != null) {
-                // if we have no completion data, client will display an error, lets just send a space instead (https://bugs.mojang.com/browse/MC-165562)
-                if (completions.size() == 1 && completions.get(0).equals("")) {
-                    completions.set(0, " ");
-                }
-                event.setCompletions(completions);
-                event.setHandled(true);
-            }
-        } catch (Exception e) {
-            if (!(e instanceof CommandCompletions.SyncCompletionRequired)) {
-                throw e;
+        // Completions that aren't async-safe leave the event unhandled, so they are completed by the sync event instead.
+        List<String> completions = getCompletions(buffer, event.getCompletions(), event.getSender(), true);
+        if (completions != null) {
+            // if we have no completion data, client will display an error, lets just send a space instead (https://bugs.mojang.com/browse/MC-165562)
+            if (completions.size() == 1 && completions.get(0).equals("")) {
+                completions.set(0, " ");
             }
+            event.setCompletions(completions);
+            event.setHandled(true);
         }
     }
 
@@ -76,9 +75,13 @@ class PaperAsyncTabCompleteHandler implements Listener {
         }
 
         BukkitCommandIssuer issuer = this.manager.getCommandIssuer(sender);
-        List<String> completions = rootCommand.getTabCompletions(issuer, commandLabel, args, false, async);
-
-        return ACFUtil.preformOnImmutable(existingCompletions, (list) -> list.addAll(completions));
+        CompletionSink sink = new CompletionSink(args[args.length - 1], this.manager.getCompletionLimit());
+        sink.include(existingCompletions);
+        // The event is answered once the listener returns, so lookups still running are waited on here, up to the completion deadline or a default wait.
+        long deadline = this.manager.getCompletionDeadline(TimeUnit.NANOSECONDS);
+        List<String> completions = sink.complete(rootCommand.getTabCompletions(issuer, args, false, async, sink),
+                deadline > 0 ? deadline : TimeUnit.MILLISECONDS.toNanos(DEFAULT_WAIT_MILLIS), TimeUnit.NANOSECONDS);
+        return sink.isSyncRequired() ? null : completions;
     }
 
     private static String stripLeadingSlash(String arg) {
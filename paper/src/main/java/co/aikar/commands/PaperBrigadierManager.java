@@ -56,7 +56,8 @@ public class PaperBrigadierManager implements Listener {
             event.setLiteral(brigadierManager.register(
                     acfCommand,
                     event.getLiteral(),
-                    event.getBrigadierCommand(),
+                    brigadierManager.suggestionProvider(acfCommand, BukkitBrigadierCommandSource::getBukkitSender,
+                            () -> !Bukkit.isPrimaryThread(), event.getBrigadierCommand()),
                     event.getBrigadierCommand(),
                     this::checkPermRoot,
                     this::checkPermSub
@@ -65,10 +66,10 @@ public class PaperBrigadierManager implements Listener {
     }
 
     private boolean checkPermSub(RegisteredCommand registeredCommand, BukkitBrigadierCommandSource sender) {
-        return registeredCommand.hasPermission(manager.getCommandIssuer(sender.getBukkitSender()));
+        return registeredCommand.hasPermission(brigadierManager.getIssuer(sender, BukkitBrigadierCommandSource::getBukkitSender));
     }
 
     private boolean checkPermRoot(RootCommand rootCommand, BukkitBrigadierCommandSource sender) {
-        return rootCommand.hasAnyPermission(manager.getCommandIssuer(sender.getBukkitSender()));
+        return rootCommand.hasAnyPermission(brigadierManager.getIssuer(sender, BukkitBrigadierCommandSource::getBukkitSender));
     }
 }
@@ -26,7 +26,10 @@ public class ACFVelocityUtil {
         CommandSource requester = issuer.getIssuer();
         String name = ACFUtil.replace(search, ":confirm", "");
 
-        List<Player> matches = new ArrayList<>(matchPlayer(server, name));
+        CommandManager manager = issuer.getManager();
+        List<Player> matches = manager instanceof VelocityCommandManager
+                ? ((VelocityCommandManager) manager).getPlayerDirectory().matchPlayer(name)
+                : new ArrayList<>(matchPlayer(server, name));
 
         if (matches.size() > 1) {
             String allMatches = matches.stream().map(Player::getUsername).collect(Collectors.joining(", "));
@@ -23,15 +23,12 @@
 
 package co.aikar.commands;
 
-import co.aikar.commands.apachecommonslang.ApacheCommonsLangUtil;
 import com.velocitypowered.api.command.CommandSource;
-import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.format.TextDecoration;
 import net.kyori.adventure.text.format.TextFormat;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -56,21 +53,11 @@ public class VelocityCommandCompletions extends CommandCompletions<VelocityComma
 
             return colors.map(color -> ACFUtil.simplifyString(color.toString())).collect(Collectors.toList());
         });
-        registerCompletion("players", c -> {
+        registerAsyncSinkCompletion("players", (c, sink) -> {
             CommandSource sender = c.getSender();
             ACFVelocityUtil.validate(sender, "Sender cannot be null");
-            String input = c.getInput();
 
-            ArrayList<String> matchedPlayers = new ArrayList<>();
-            for (Player player : server.getAllPlayers()) {
-                String name = player.getUsername();
-                if (ApacheCommonsLangUtil.startsWithIgnoreCase(name, input)) {
-                    matchedPlayers.add(name);
-                }
-            }
-
-            matchedPlayers.sort(String.CASE_INSENSITIVE_ORDER);
-            return matchedPlayers;
+            c.issuer.getManager().getPlayerDirectory().complete(c.getInput(), sink);
         });
     }
 }
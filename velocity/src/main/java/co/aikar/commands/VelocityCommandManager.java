@@ -29,6 +29,7 @@ import com.velocitypowered.api.command.CommandMeta;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.plugin.Plugin;
 import com.velocitypowered.api.plugin.PluginContainer;
+import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import lombok.Getter;
 import org.slf4j.Logger;
@@ -50,6 +51,7 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
     protected Map<String, VelocityRootCommand> registeredCommands = new HashMap<>();
     protected VelocityCommandContexts contexts;
     protected VelocityCommandCompletions completions;
+    protected final PlayerDirectory<Player> playerDirectory = new PlayerDirectory<>();
 
     public VelocityCommandManager(ProxyServer proxy, Object plugin) {
         this.proxy = proxy;
@@ -60,6 +62,7 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Plugin.class, plugin);
         registerDependency(ProxyServer.class, proxy);
+        registerPlayerDirectory(plugin);
     }
 
     public VelocityCommandManager(ProxyServer proxy, Object plugin, boolean config) {
@@ -73,6 +76,7 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Plugin.class, plugin);
         registerDependency(ProxyServer.class, proxy);
+        registerPlayerDirectory(plugin);
     }
 
     public VelocityCommandManager(ProxyServer proxy, Object plugin, VelocityCommandManager copyFrom) {
@@ -88,6 +92,23 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
         registerDependency(plugin.getClass(), plugin);
         registerDependency(Plugin.class, plugin);
         registerDependency(ProxyServer.class, proxy);
+        registerPlayerDirectory(plugin);
+    }
+
+    private void registerPlayerDirectory(Object plugin) {
+        // Players may already be connected if the plugin was loaded late.
+        for (Player player : proxy.getAllPlayers()) {
+            playerDirectory.addPlayer(player.getUsername(), player);
+        }
+        proxy.getEventManager().register(plugin, new ACFVelocityListener(this));
+    }
+
+    /**
+     * @return The players of the proxy by name, used to complete and resolve player names. Add a {@link PlayerFeed} to
+     * complete the players of other proxies as well.
+     */
+    public PlayerDirectory<Player> getPlayerDirectory() {
+        return playerDirectory;
     }
 
     @Override
@@ -133,6 +154,7 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
             String commandName = entry.getKey().toLowerCase();
             VelocityRootCommand velocityCommand = (VelocityRootCommand) entry.getValue();
             velocityCommand.getSubCommands().values().removeAll(command.subCommands.values());
+            getRouter().reindex(velocityCommand);
             if (velocityCommand.getSubCommands().isEmpty() && velocityCommand.isRegistered) {
                 unregisterCommand(velocityCommand);
                 velocityCommand.isRegistered = false;
@@ -143,6 +165,7 @@ public class VelocityCommandManager extends CommandManager<CommandSource, Veloci
 
     public void unregisterCommand(VelocityRootCommand command) {
         proxy.getCommandManager().unregister(command.getCommandName());
+        getRouter().remove(command);
     }
 
     public void unregisterCommands() {
@@ -87,6 +87,6 @@ public class VelocityRootCommand implements SimpleCommand, RootCommand {
 
     @Override
     public CompletableFuture<List<String>> suggestAsync(Invocation invocation) {
-        return CompletableFuture.completedFuture(getTabCompletions(manager.getCommandIssuer(invocation.source()), getCommandName(), invocation.arguments()));
+        return getTabCompletionsAsync(manager.getCommandIssuer(invocation.source()), getCommandName(), invocation.arguments(), false, false);
     }
 }